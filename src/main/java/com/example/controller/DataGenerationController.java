@@ -1,17 +1,25 @@
 package com.example.controller;
 
 import com.example.dto.DataGenerationRequest;
+import com.example.dto.GenerationProfile;
 import com.example.service.DataGenerationService;
+import com.example.service.StudentRecordGenerator;
+import com.example.service.StudentXlsxWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.core.io.Resource;
 
@@ -25,10 +33,20 @@ public class DataGenerationController {
 
     @PostMapping("/generate-excel")
     public ResponseEntity<Map<String, Object>> generateExcelFile(@RequestBody DataGenerationRequest request) {
+        String invalid = validateGeneration(DataGenerationService.TARGET_XLSX, request.getNumberOfRecords(),
+                request.getProfile());
+        if (invalid != null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", invalid);
+            return ResponseEntity.badRequest().body(response);
+        }
         try {
             long startTime = System.currentTimeMillis();
+            long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+            StudentRecordGenerator generator = StudentRecordGenerator.from(request.getProfile());
             
-            String filePath = dataGenerationService.generateExcelFile(request.getNumberOfRecords());
+            String filePath = dataGenerationService.generateExcelFile(request.getNumberOfRecords(), seed, generator);
             
             long endTime = System.currentTimeMillis();
             long duration = endTime - startTime;
@@ -38,12 +56,13 @@ public class DataGenerationController {
             response.put("message", "Excel file generated successfully");
             response.put("filePath", filePath);
             response.put("recordsGenerated", request.getNumberOfRecords());
+            response.put("seed", seed);
             response.put("generationTimeMs", duration);
             response.put("generationTimeSeconds", duration / 1000.0);
             response.put("recordsPerSecond", Math.round((double) request.getNumberOfRecords() / (duration / 1000.0)));
             
             return ResponseEntity.ok(response);
-        } catch (IOException e) {
+        } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "Error generating Excel file: " + e.getMessage());
@@ -52,6 +71,114 @@ public class DataGenerationController {
         }
     }
 
+    // Synthetic records straight to the target, without going through an xlsx: the workbook, a plain CSV
+    // file, or a bulk insert into students. The same seed and profile give the same records on every target
+    @PostMapping("/generate")
+    public ResponseEntity<Map<String, Object>> generate(@RequestBody DataGenerationRequest request) {
+        String target = request.getTarget() != null
+                ? request.getTarget().trim().toLowerCase(Locale.ROOT) : DataGenerationService.TARGET_XLSX;
+        String invalid = validateGeneration(target, request.getNumberOfRecords(), request.getProfile());
+        if (invalid != null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", invalid);
+            return ResponseEntity.badRequest().body(response);
+        }
+        int numberOfRecords = request.getNumberOfRecords();
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        StudentRecordGenerator generator = StudentRecordGenerator.from(request.getProfile());
+
+        try {
+            long startTime = System.currentTimeMillis();
+            Map<String, Object> response = new HashMap<>();
+            switch (target) {
+                case DataGenerationService.TARGET_CSV ->
+                        response.put("filePath", dataGenerationService.generateCsvFile(numberOfRecords, seed, generator));
+                case DataGenerationService.TARGET_DATABASE ->
+                        response.putAll(dataGenerationService.generateIntoDatabase(numberOfRecords, seed, generator));
+                default -> response.put("filePath", dataGenerationService.generateExcelFile(numberOfRecords, seed, generator));
+            }
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+
+            response.put("success", true);
+            response.put("message", "Records generated successfully");
+            response.put("target", target);
+            response.put("seed", seed);
+            response.put("recordsGenerated", numberOfRecords);
+            response.put("generationTimeMs", duration);
+            response.put("generationTimeSeconds", duration / 1000.0);
+            response.put("recordsPerSecond", Math.round(numberOfRecords / (duration / 1000.0)));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error generating records: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Generated CSV or workbook streamed as the response body (chunked) while it is produced; nothing
+    // touches disk and the first bytes go out before any row is generated. target is csv (default) or xlsx
+    @GetMapping("/generate-stream")
+    public ResponseEntity<StreamingResponseBody> generateStream(@RequestParam Integer numberOfRecords,
+                                                                @RequestParam(required = false) Long seed,
+                                                                @RequestParam(defaultValue = DataGenerationService.TARGET_CSV) String target) {
+        return stream(target, numberOfRecords, seed, null);
+    }
+
+    // As the GET, with a DataGenerationRequest body so a profile can be given; target defaults to xlsx
+    // like /generate-excel, which this replaces when the client only wants the file
+    @PostMapping("/generate-stream")
+    public ResponseEntity<StreamingResponseBody> generateStream(@RequestBody DataGenerationRequest request) {
+        String target = request.getTarget() != null ? request.getTarget() : DataGenerationService.TARGET_XLSX;
+        return stream(target, request.getNumberOfRecords(), request.getSeed(), request.getProfile());
+    }
+
+    // MVC only streams a ResponseEntity declared with StreamingResponseBody, so errors are plain text.
+    // A failure once the body has started can only abort the response
+    private ResponseEntity<StreamingResponseBody> stream(String target, Integer numberOfRecords, Long seed,
+                                                         GenerationProfile profile) {
+        String format = target.trim().toLowerCase(Locale.ROOT);
+        String invalid = DataGenerationService.TARGET_DATABASE.equals(format)
+                ? "Only csv and xlsx can be streamed"
+                : validateGeneration(format, numberOfRecords, profile);
+        if (invalid != null) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(invalid.getBytes(StandardCharsets.UTF_8)));
+        }
+        long resolvedSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        StudentRecordGenerator generator = StudentRecordGenerator.from(profile);
+
+        StreamingResponseBody body;
+        MediaType contentType;
+        if (DataGenerationService.TARGET_XLSX.equals(format)) {
+            body = out -> dataGenerationService.streamStudentWorkbook(out, numberOfRecords, resolvedSeed, generator);
+            contentType = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        } else {
+            body = out -> dataGenerationService.writeStudentCsv(out, numberOfRecords, resolvedSeed, generator);
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        }
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"students_" + resolvedSeed + "." + format + "\"")
+                .header("X-Generation-Seed", String.valueOf(resolvedSeed))
+                .contentType(contentType)
+                .body(body);
+    }
+
+    private static String validateGeneration(String target, Integer numberOfRecords, GenerationProfile profile) {
+        if (!List.of(DataGenerationService.TARGET_XLSX, DataGenerationService.TARGET_CSV,
+                DataGenerationService.TARGET_DATABASE).contains(target)) {
+            return "Unknown target '" + target + "', expected xlsx, csv or database";
+        }
+        int max = DataGenerationService.TARGET_XLSX.equals(target)
+                ? StudentXlsxWriter.MAX_ROWS : DataGenerationService.MAX_GENERATED_RECORDS;
+        if (numberOfRecords == null || numberOfRecords < 1 || numberOfRecords > max) {
+            return "Number of records must be between 1 and " + max + " for " + target;
+        }
+        return profile != null ? profile.getValidationErrors() : null;
+    }
+
     @PostMapping("/performance-test")
     public ResponseEntity<Map<String, Object>> performanceTest() {
         try {
@@ -161,8 +288,8 @@ public class DataGenerationController {
                 }
             }
             
-            String storagePath = dataGenerationService.getStoragePath();
-            Path filePath = Paths.get(storagePath, "excel", actualFileName);
+            // Where /generate-excel wrote it, whatever app.file.storage.excel is set to
+            Path filePath = dataGenerationService.getExcelDirectory().resolve(actualFileName);
             
             if (!Files.exists(filePath)) {
                 return ResponseEntity.notFound().build();
@@ -1,6 +1,10 @@
 package com.example.controller;
 
+import com.example.service.BatchConversionService;
+import com.example.service.CsvShardWriter;
 import com.example.service.DataProcessingService;
+import com.example.service.InputDecompressor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -15,6 +19,7 @@ import java.net.MalformedURLException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,12 +27,29 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class DataProcessingController {
 
+    private static final String SHEETS_MERGED = "merged";
+    private static final String SHEETS_SEPARATE = "separate";
+
     @Autowired
     private DataProcessingService dataProcessingService;
 
+    @Autowired
+    private BatchConversionService batchConversionService;
+
     @PostMapping("/excel-to-csv")
-    public ResponseEntity<Map<String, Object>> convertExcelToCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> convertExcelToCsv(@RequestParam("file") MultipartFile file,
+                                                                 @RequestParam(value = "sheets", defaultValue = SHEETS_MERGED) String sheets,
+                                                                 @RequestParam(value = "format", defaultValue = DataProcessingService.FORMAT_CSV) String format,
+                                                                 @RequestParam(value = "shards", defaultValue = "1") int shards,
+                                                                 @RequestParam(value = "shardBy", defaultValue = CsvShardWriter.SHARD_BY_ROWS) String shardBy) {
         try {
+            ResponseEntity<Map<String, Object>> invalidSheets = validateSheets(sheets);
+            if (invalidSheets != null) return invalidSheets;
+            ResponseEntity<Map<String, Object>> invalidFormat = validateFormat(format);
+            if (invalidFormat != null) return invalidFormat;
+            ResponseEntity<Map<String, Object>> invalidShards = validateShards(shards, shardBy, sheets, format);
+            if (invalidShards != null) return invalidShards;
+
             // Validate file
             if (file.isEmpty()) {
                 Map<String, Object> response = new HashMap<>();
@@ -38,19 +60,20 @@ public class DataProcessingController {
 
             // Validate file type
             String originalFilename = file.getOriginalFilename();
-            if (originalFilename == null || (!originalFilename.endsWith(".xlsx") && !originalFilename.endsWith(".xls"))) {
+            if (originalFilename == null || !isExcelFileName(originalFilename)) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
-                response.put("message", "Please upload an Excel file (.xlsx or .xls)");
+                response.put("message", "Please upload an Excel file (.xlsx or .xls, optionally .gz or .zst compressed)");
                 return ResponseEntity.badRequest().body(response);
             }
 
-            String csvFilePath = dataProcessingService.convertExcelToCsv(file);
+            Map<String, Object> stats = shards > 1
+                    ? dataProcessingService.convertExcelToCsvShards(file, shards, shardBy)
+                    : dataProcessingService.convertExcelToCsv(file, SHEETS_SEPARATE.equals(sheets), format);
             
-            Map<String, Object> response = new HashMap<>();
+            Map<String, Object> response = new HashMap<>(stats);
             response.put("success", true);
-            response.put("message", "Excel file converted to CSV successfully");
-            response.put("csvFilePath", csvFilePath);
+            response.put("message", "Excel file converted to " + formatName(format) + " successfully");
             
             return ResponseEntity.ok(response);
         } catch (IOException e) {
@@ -68,6 +91,153 @@ public class DataProcessingController {
         }
     }
 
+    // Raw (optionally chunked) request body instead of multipart: the upload is handed straight
+    // to the workbook reader, with no multipart temp file and no upload size cap
+    @PostMapping(value = "/excel-to-csv/stream", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.ms-excel",
+            "application/gzip",
+            "application/zstd"})
+    public ResponseEntity<Map<String, Object>> streamExcelToCsv(HttpServletRequest request,
+                                                                @RequestParam(value = "fileName", defaultValue = "uploaded_file.xlsx") String fileName,
+                                                                @RequestParam(value = "sheets", defaultValue = SHEETS_MERGED) String sheets,
+                                                                @RequestParam(value = "format", defaultValue = DataProcessingService.FORMAT_CSV) String format,
+                                                                @RequestParam(value = "shards", defaultValue = "1") int shards,
+                                                                @RequestParam(value = "shardBy", defaultValue = CsvShardWriter.SHARD_BY_ROWS) String shardBy) {
+        try {
+            ResponseEntity<Map<String, Object>> invalidSheets = validateSheets(sheets);
+            if (invalidSheets != null) return invalidSheets;
+            ResponseEntity<Map<String, Object>> invalidFormat = validateFormat(format);
+            if (invalidFormat != null) return invalidFormat;
+            ResponseEntity<Map<String, Object>> invalidShards = validateShards(shards, shardBy, sheets, format);
+            if (invalidShards != null) return invalidShards;
+
+            if (!isExcelFileName(fileName)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "fileName must end with .xlsx or .xls, optionally followed by .gz or .zst");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            Map<String, Object> stats = shards > 1
+                    ? dataProcessingService.convertExcelToCsvShards(request.getInputStream(), fileName, shards, shardBy)
+                    : dataProcessingService.convertExcelToCsv(request.getInputStream(), fileName,
+                    SHEETS_SEPARATE.equals(sheets), format);
+            
+            Map<String, Object> response = new HashMap<>(stats);
+            response.put("success", true);
+            response.put("message", "Excel file converted to " + formatName(format) + " successfully");
+            
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error converting Excel to CSV: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error processing Excel stream: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Many workbooks at once, as separate parts and/or zips of workbooks, each converted like
+    // POST /excel-to-csv. Reports every file and the batch totals; fails only when a file failed
+    @PostMapping("/excel-to-csv/batch")
+    public ResponseEntity<Map<String, Object>> convertExcelBatch(@RequestParam("files") List<MultipartFile> files,
+                                                                 @RequestParam(value = "sheets", defaultValue = SHEETS_MERGED) String sheets,
+                                                                 @RequestParam(value = "format", defaultValue = DataProcessingService.FORMAT_CSV) String format) {
+        try {
+            ResponseEntity<Map<String, Object>> invalidSheets = validateSheets(sheets);
+            if (invalidSheets != null) return invalidSheets;
+            ResponseEntity<Map<String, Object>> invalidFormat = validateFormat(format);
+            if (invalidFormat != null) return invalidFormat;
+
+            if (files.isEmpty() || files.stream().allMatch(MultipartFile::isEmpty)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Please select files to upload");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            Map<String, Object> stats = batchConversionService.convertAll(files, SHEETS_SEPARATE.equals(sheets), format);
+
+            int failed = (Integer) stats.get("failed");
+            Map<String, Object> response = new HashMap<>(stats);
+            response.put("success", failed == 0);
+            response.put("message", failed == 0
+                    ? "Converted " + stats.get("succeeded") + " workbooks to " + formatName(format)
+                    : failed + " of " + stats.get("fileCount") + " workbooks could not be converted");
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error converting Excel batch: " + e.getMessage());
+
+            return ResponseEntity.internalServerError().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error processing Excel batch: " + e.getMessage());
+
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // merged: one CSV with every sheet in workbook order; separate: one CSV per sheet
+    private static ResponseEntity<Map<String, Object>> validateSheets(String sheets) {
+        if (SHEETS_MERGED.equals(sheets) || SHEETS_SEPARATE.equals(sheets)) return null;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "sheets must be 'merged' or 'separate'");
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // csv: text, every value as written in the sheet; parquet: typed columns, see StudentParquetWriter
+    private static ResponseEntity<Map<String, Object>> validateFormat(String format) {
+        if (DataProcessingService.FORMAT_CSV.equals(format) || DataProcessingService.FORMAT_PARQUET.equals(format)) return null;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "format must be 'csv' or 'parquet'");
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    // shards > 1 splits the merged CSV into that many files plus a manifest; rows: even split, hash: by studentId
+    private static ResponseEntity<Map<String, Object>> validateShards(int shards, String shardBy, String sheets, String format) {
+        String message = null;
+        if (shards < 1 || shards > CsvShardWriter.MAX_SHARDS) {
+            message = "shards must be between 1 and " + CsvShardWriter.MAX_SHARDS;
+        } else if (!CsvShardWriter.SHARD_BY_ROWS.equals(shardBy) && !CsvShardWriter.SHARD_BY_HASH.equals(shardBy)) {
+            message = "shardBy must be 'rows' or 'hash'";
+        } else if (shards > 1 && (SHEETS_SEPARATE.equals(sheets) || !DataProcessingService.FORMAT_CSV.equals(format))) {
+            message = "shards only applies to merged CSV output";
+        }
+        if (message == null) return null;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private static String formatName(String format) {
+        return DataProcessingService.FORMAT_PARQUET.equals(format) ? "Parquet" : "CSV";
+    }
+
+    private static boolean isExcelFileName(String fileName) {
+        String name = InputDecompressor.stripCompressionExtension(fileName);
+        return name.endsWith(".xlsx") || name.endsWith(".xls");
+    }
+
     @GetMapping("/download/{fileName}")
     public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
         try {
@@ -84,8 +254,9 @@ public class DataProcessingController {
             Resource resource = new UrlResource(filePath.toUri());
             
             if (resource.exists() && resource.isReadable()) {
+                String contentType = actualFileName.endsWith(".parquet") ? "application/octet-stream" : "text/csv";
                 return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .contentType(MediaType.parseMediaType(contentType))
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + actualFileName + "\"")
                     .body(resource);
             } else {
@@ -2,8 +2,19 @@ package com.example.controller;
 
 import com.example.entity.Student;
 import com.example.service.DatabaseService;
+import com.example.service.IngestCheckpointService;
+import com.example.service.IngestJob;
+import com.example.service.IngestJobService;
+import com.example.service.InputDecompressor;
+import com.example.service.RejectFileService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,6 +23,9 @@ import java.util.Map;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -22,6 +36,15 @@ public class DatabaseController {
     @Autowired
     private DatabaseService databaseService;
 
+    @Autowired
+    private IngestJobService ingestJobService;
+
+    @Autowired
+    private IngestCheckpointService ingestCheckpointService;
+
+    @Autowired
+    private RejectFileService rejectFileService;
+
     @Value("${spring.datasource.url}")
     private String databaseUrl;
     
@@ -32,7 +55,10 @@ public class DatabaseController {
     private String databasePassword;
 
     @PostMapping("/upload-csv")
-    public ResponseEntity<Map<String, Object>> uploadCsvToDatabase(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadCsvToDatabase(@RequestParam("file") MultipartFile file,
+                                                                   @RequestParam(value = "mode", defaultValue = "jpa") String mode,
+                                                                   @RequestParam(value = "writers", required = false) Integer writers,
+                                                                   @RequestParam(value = "async", defaultValue = "false") boolean async) {
         try {
             // Validate file
             if (file.isEmpty()) {
@@ -44,36 +70,286 @@ public class DatabaseController {
 
             // Validate file type
             String originalFilename = file.getOriginalFilename();
-            if (originalFilename == null || !originalFilename.endsWith(".csv")) {
+            if (originalFilename == null || !InputDecompressor.stripCompressionExtension(originalFilename).endsWith(".csv")) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
-                response.put("message", "Please upload a CSV file (.csv)");
+                response.put("message", "Please upload a CSV file (.csv, .csv.gz or .csv.zst)");
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int recordsUploaded = databaseService.uploadCsvToDatabase(file);
+            if (isJpaMode(mode, async)) {
+                // Multipart files can be read twice, so this load is fingerprinted and checkpointed
+                long startTime = System.currentTimeMillis();
+                return jpaUploadResponse(databaseService.uploadCsvToDatabase(file), startTime);
+            }
+            return ingestCsv(file.getInputStream(), originalFilename, mode, writers, async);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error uploading CSV to database: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error processing CSV file: " + e.getMessage());
             
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Same modes as /upload-csv, but the CSV is the raw (optionally chunked) request body.
+    // Rows are parsed as the bytes arrive: no multipart temp file and no upload size cap.
+    // The default mode differs on purpose: pipeline here, jpa for /upload-csv. A raw body can only be
+    // read once, so a jpa load of it gets no fingerprint or checkpoints (the reason jpa is the
+    // multipart default), and bodies sent this way are usually the large ones. mode=jpa still works.
+    @PostMapping(value = "/upload-csv/stream", consumes = {"text/csv", "text/plain", MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "application/gzip", "application/zstd"})
+    public ResponseEntity<Map<String, Object>> streamCsvToDatabase(HttpServletRequest request,
+                                                                   @RequestParam(value = "fileName", defaultValue = "upload.csv") String fileName,
+                                                                   @RequestParam(value = "mode", defaultValue = "pipeline") String mode,
+                                                                   @RequestParam(value = "writers", required = false) Integer writers,
+                                                                   @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        try {
+            return ingestCsv(request.getInputStream(), fileName, mode, writers, async);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
             Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error streaming CSV to database: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error processing CSV stream: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> ingestCsv(InputStream csv, String fileName, String mode,
+                                                          Integer writers, boolean async) throws Exception {
+        if ("bulk".equalsIgnoreCase(mode)) {
+            Map<String, Object> response = new HashMap<>(databaseService.uploadCsvWithBulkLoad(csv));
+            response.put("success", true);
+            response.put("message", "CSV file bulk-loaded to database successfully");
+            response.put("mode", "bulk");
+            
+            return ResponseEntity.ok(response);
+        }
+
+        if ("merge".equalsIgnoreCase(mode)) {
+            Map<String, Object> response = new HashMap<>(databaseService.uploadCsvWithMerge(csv));
+            response.put("success", true);
+            response.put("message", "CSV file merged into database successfully");
+            response.put("mode", "merge");
+            
+            return ResponseEntity.ok(response);
+        }
+
+        if (async) {
+            // Async jobs always run through the ingest pipeline
+            IngestJob job = ingestJobService.submit(csv, fileName, writers);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "CSV ingest job accepted");
+            response.put("jobId", job.getJobId());
+            response.put("status", job.getStatus().name());
+            response.put("statusUrl", "/database/jobs/" + job.getJobId());
+            
+            return ResponseEntity.accepted().body(response);
+        }
+
+        if ("pipeline".equalsIgnoreCase(mode)) {
+            Map<String, Object> response = new HashMap<>(databaseService.uploadCsvWithPipeline(csv, writers));
+            response.put("success", true);
+            response.put("message", "CSV file loaded to database through the ingest pipeline");
+            response.put("mode", "pipeline");
+            
+            return ResponseEntity.ok(response);
+        }
+
+        long startTime = System.currentTimeMillis();
+        return jpaUploadResponse(databaseService.uploadCsvToDatabase(csv), startTime);
+    }
+
+    // The default mode: whatever ingestCsv does not route to bulk, merge, an async job or the pipeline
+    private static boolean isJpaMode(String mode, boolean async) {
+        return !"bulk".equalsIgnoreCase(mode) && !"merge".equalsIgnoreCase(mode) && !async
+                && !"pipeline".equalsIgnoreCase(mode);
+    }
+
+    private static ResponseEntity<Map<String, Object>> jpaUploadResponse(Map<String, Object> stats, long startTime) {
+        Map<String, Object> response = new HashMap<>(stats);
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+        int recordsUploaded = (Integer) response.get("recordsUploaded");
+        
+        response.put("success", true);
+        response.put("message", "CSV file uploaded to database successfully");
+        response.put("mode", "jpa");
+        response.put("durationMs", duration);
+        response.put("rowsPerSecond", Math.round(recordsUploaded / (duration / 1000.0)));
+        
+        return ResponseEntity.ok(response);
+    }
+
+    // Excel upload loaded straight into students, skipping the excel-to-csv / upload-csv round trip
+    @PostMapping("/upload-excel")
+    public ResponseEntity<Map<String, Object>> uploadExcelToDatabase(@RequestParam("file") MultipartFile file) {
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Please select a file to upload");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Validate file type
+            String originalFilename = file.getOriginalFilename();
+            String excelName = originalFilename == null ? "" : InputDecompressor.stripCompressionExtension(originalFilename);
+            if (!excelName.endsWith(".xlsx") && !excelName.endsWith(".xls")) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Please upload an Excel file (.xlsx or .xls, optionally .gz or .zst compressed)");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            Map<String, Object> response = new HashMap<>(databaseService.uploadExcelToDatabase(file));
             response.put("success", true);
-            response.put("message", "CSV file uploaded to database successfully");
-            response.put("recordsUploaded", recordsUploaded);
+            response.put("message", "Excel file loaded to database successfully");
+            response.put("mode", "excel-direct");
             
             return ResponseEntity.ok(response);
         } catch (IOException e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Error uploading CSV to database: " + e.getMessage());
+            response.put("message", "Error uploading Excel to database: " + e.getMessage());
             
             return ResponseEntity.internalServerError().body(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Error processing CSV file: " + e.getMessage());
+            response.put("message", "Error processing Excel file: " + e.getMessage());
             
             return ResponseEntity.internalServerError().body(response);
         }
     }
 
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getIngestJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (IngestJob job : ingestJobService.getJobs()) {
+            jobs.add(job.toMap());
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getIngestJob(@PathVariable String jobId) {
+        IngestJob job = ingestJobService.getJob(jobId);
+        if (job == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Unknown ingest job: " + jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        
+        Map<String, Object> response = new HashMap<>(job.toMap());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelIngestJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!ingestJobService.cancel(jobId)) {
+            response.put("success", false);
+            response.put("message", "Ingest job not found or already finished: " + jobId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        
+        response.put("success", true);
+        response.put("message", "Cancellation requested; in-flight batches are rolled back");
+        response.put("jobId", jobId);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeIngestJob(@PathVariable String jobId,
+                                                               @RequestParam(value = "writers", required = false) Integer writers) {
+        try {
+            IngestJob job = ingestJobService.resume(jobId, writers);
+            if (job == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Ingest job is unknown, still running or not resumable: " + jobId);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "CSV ingest job resumed from its last checkpoint");
+            response.put("jobId", job.getJobId());
+            response.put("resumedFromJobId", jobId);
+            response.put("statusUrl", "/database/jobs/" + job.getJobId());
+            
+            return ResponseEntity.accepted().body(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error resuming ingest job: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    @GetMapping("/checkpoints/{fingerprint}")
+    public ResponseEntity<Map<String, Object>> getIngestCheckpoints(@PathVariable String fingerprint) {
+        Map<String, Object> response = new HashMap<>(ingestCheckpointService.summary(fingerprint));
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/checkpoints/{fingerprint}")
+    public ResponseEntity<Map<String, Object>> clearIngestCheckpoints(@PathVariable String fingerprint) {
+        int removed = ingestCheckpointService.clear(fingerprint);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Checkpoints cleared; the next upload of this file loads it again");
+        response.put("checkpointsRemoved", removed);
+        return ResponseEntity.ok(response);
+    }
+
+    // Rejected lines of an upload (line, reason, detail, raw), named by the rejectFileId in its response
+    @GetMapping("/rejects/{rejectFileId}")
+    public ResponseEntity<Resource> downloadRejectFile(@PathVariable String rejectFileId) {
+        Path rejectFile = rejectFileService.find(rejectFileId);
+        if (rejectFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejects-" + rejectFileId + ".csv\"")
+                .body(new FileSystemResource(rejectFile));
+    }
+
     @GetMapping("/total-count")
     public ResponseEntity<Map<String, Object>> getTotalStudentCount() {
         try {
@@ -132,6 +132,34 @@ public class ReportingController {
         }
     }
 
+    @PostMapping("/export/parquet")
+    public ResponseEntity<Map<String, Object>> exportToParquet(@RequestBody ReportRequest request) {
+        try {
+            // Validate request parameters
+            if (!request.isValid()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Invalid request parameters: " + request.getValidationErrors());
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            String filePath = reportingService.exportToParquet(request);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Parquet report generated successfully");
+            response.put("filePath", filePath);
+            
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error generating Parquet report: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     @PostMapping("/export/pdf")
     public ResponseEntity<Map<String, Object>> exportToPdf(@RequestBody ReportRequest request) {
         try {
@@ -6,9 +6,18 @@ import jakarta.validation.constraints.Max;
 public class DataGenerationRequest {
     
     @Min(value = 1, message = "Number of records must be at least 1")
-    @Max(value = 1000000, message = "Number of records cannot exceed 1,000,000")
+    @Max(value = 100000000, message = "Number of records cannot exceed 100,000,000")
     private Integer numberOfRecords;
 
+    // Optional: the same seed and record count reproduce the same workbook
+    private Long seed;
+
+    // POST /data-generation/generate: xlsx (default), csv or database
+    private String target;
+
+    // Optional shape of the generated data; see GenerationProfile
+    private GenerationProfile profile;
+
     public DataGenerationRequest() {}
 
     public DataGenerationRequest(Integer numberOfRecords) {
@@ -22,4 +31,28 @@ public class DataGenerationRequest {
     public void setNumberOfRecords(Integer numberOfRecords) {
         this.numberOfRecords = numberOfRecords;
     }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public GenerationProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(GenerationProfile profile) {
+        this.profile = profile;
+    }
 }
@@ -0,0 +1,172 @@
+package com.example.dto;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+// Shape of generated student data. Every field is optional; leaving one out keeps the original
+// uniform draw for that column, so an empty profile generates exactly what no profile does
+public class GenerationProfile {
+
+    public static final String SCORES_UNIFORM = "uniform";
+    public static final String SCORES_NORMAL = "normal";
+
+    public static final int DEFAULT_SCORE_MIN = 55;
+    public static final int DEFAULT_SCORE_MAX = 75;
+    public static final int MAX_CLASS_COUNT = 10_000;
+    public static final long MAX_DOB_RANGE_DAYS = 100_000;
+
+    // Class1..ClassN, default 5
+    private Integer classCount;
+    // Zipf exponent: class k is drawn with weight 1 / k^classSkew. 0 (default) is uniform, 1 is classic Zipf
+    private Double classSkew;
+    // Distinct first / last names, default 10. Past the 10 built-in names, names are synthesized.
+    // A lastNameCardinality of 0 gives every student a last name of its own
+    private Integer firstNameCardinality;
+    private Integer lastNameCardinality;
+    // Inclusive ISO dates, drawn uniformly; without them DOB is one of 10 fixed dates
+    private String dobFrom;
+    private String dobTo;
+    // uniform (default) or normal, clamped to scoreMin..scoreMax (default 55..75)
+    private String scoreDistribution;
+    private Integer scoreMin;
+    private Integer scoreMax;
+    // normal only: default the middle of the range and a sixth of its width
+    private Double scoreMean;
+    private Double scoreStdDev;
+
+    public String getValidationErrors() {
+        if (classCount != null && (classCount < 1 || classCount > MAX_CLASS_COUNT)) {
+            return "classCount must be between 1 and " + MAX_CLASS_COUNT;
+        }
+        if (classSkew != null && !(classSkew >= 0 && classSkew <= 10)) {
+            return "classSkew must be between 0 and 10";
+        }
+        if (firstNameCardinality != null && firstNameCardinality < 1) {
+            return "firstNameCardinality must be positive";
+        }
+        if (lastNameCardinality != null && lastNameCardinality < 0) {
+            return "lastNameCardinality must be positive, or 0 for unique last names";
+        }
+        if ((dobFrom == null) != (dobTo == null)) {
+            return "dobFrom and dobTo go together";
+        }
+        if (dobFrom != null) {
+            try {
+                long days = ChronoUnit.DAYS.between(LocalDate.parse(dobFrom), LocalDate.parse(dobTo));
+                if (days < 0) return "dobFrom must not be after dobTo";
+                if (days >= MAX_DOB_RANGE_DAYS) return "DOB range cannot exceed " + MAX_DOB_RANGE_DAYS + " days";
+            } catch (DateTimeParseException e) {
+                return "dobFrom and dobTo must be yyyy-MM-dd dates";
+            }
+        }
+        if (scoreDistribution != null && !SCORES_UNIFORM.equals(scoreDistribution) && !SCORES_NORMAL.equals(scoreDistribution)) {
+            return "scoreDistribution must be " + SCORES_UNIFORM + " or " + SCORES_NORMAL;
+        }
+        long min = scoreMin != null ? scoreMin : DEFAULT_SCORE_MIN;
+        long max = scoreMax != null ? scoreMax : DEFAULT_SCORE_MAX;
+        if (min > max) {
+            return "scoreMin must not exceed scoreMax";
+        }
+        if (max - min >= Integer.MAX_VALUE) {
+            return "Score range is too wide";
+        }
+        if (scoreStdDev != null && (!(scoreStdDev > 0) || scoreStdDev.isInfinite())) {
+            return "scoreStdDev must be positive";
+        }
+        if (scoreMean != null && (scoreMean.isNaN() || scoreMean.isInfinite())) {
+            return "scoreMean must be a number";
+        }
+        return null;
+    }
+
+    public GenerationProfile() {}
+
+    public Integer getClassCount() {
+        return classCount;
+    }
+
+    public void setClassCount(Integer classCount) {
+        this.classCount = classCount;
+    }
+
+    public Double getClassSkew() {
+        return classSkew;
+    }
+
+    public void setClassSkew(Double classSkew) {
+        this.classSkew = classSkew;
+    }
+
+    public Integer getFirstNameCardinality() {
+        return firstNameCardinality;
+    }
+
+    public void setFirstNameCardinality(Integer firstNameCardinality) {
+        this.firstNameCardinality = firstNameCardinality;
+    }
+
+    public Integer getLastNameCardinality() {
+        return lastNameCardinality;
+    }
+
+    public void setLastNameCardinality(Integer lastNameCardinality) {
+        this.lastNameCardinality = lastNameCardinality;
+    }
+
+    public String getDobFrom() {
+        return dobFrom;
+    }
+
+    public void setDobFrom(String dobFrom) {
+        this.dobFrom = dobFrom;
+    }
+
+    public String getDobTo() {
+        return dobTo;
+    }
+
+    public void setDobTo(String dobTo) {
+        this.dobTo = dobTo;
+    }
+
+    public String getScoreDistribution() {
+        return scoreDistribution;
+    }
+
+    public void setScoreDistribution(String scoreDistribution) {
+        this.scoreDistribution = scoreDistribution;
+    }
+
+    public Integer getScoreMin() {
+        return scoreMin;
+    }
+
+    public void setScoreMin(Integer scoreMin) {
+        this.scoreMin = scoreMin;
+    }
+
+    public Integer getScoreMax() {
+        return scoreMax;
+    }
+
+    public void setScoreMax(Integer scoreMax) {
+        this.scoreMax = scoreMax;
+    }
+
+    public Double getScoreMean() {
+        return scoreMean;
+    }
+
+    public void setScoreMean(Double scoreMean) {
+        this.scoreMean = scoreMean;
+    }
+
+    public Double getScoreStdDev() {
+        return scoreStdDev;
+    }
+
+    public void setScoreStdDev(Double scoreStdDev) {
+        this.scoreStdDev = scoreStdDev;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// One committed ingest batch. Rows are written in the same transaction as the batch itself,
+// so a checkpoint exists if and only if the batch's students were committed.
+@Entity
+@Table(name = "ingest_checkpoints", indexes = @Index(name = "idx_ingest_checkpoints_fingerprint", columnList = "fingerprint"))
+public class IngestCheckpoint {
+
+    // fingerprint + ":" + batchNo, so replaying a batch violates the primary key
+    @Id
+    @Column(name = "checkpointId", length = 80)
+    private String checkpointId;
+
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "batchNo", nullable = false)
+    private Integer batchNo;
+
+    @Column(name = "firstLine", nullable = false)
+    private Long firstLine;
+
+    @Column(name = "lastLine", nullable = false)
+    private Long lastLine;
+
+    @Column(name = "rowsSaved", nullable = false)
+    private Integer rowsSaved;
+
+    @Column(name = "committedAt", nullable = false)
+    private Instant committedAt;
+
+    public IngestCheckpoint() {}
+
+    public String getCheckpointId() {
+        return checkpointId;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getBatchNo() {
+        return batchNo;
+    }
+
+    public Long getFirstLine() {
+        return firstLine;
+    }
+
+    public Long getLastLine() {
+        return lastLine;
+    }
+
+    public Integer getRowsSaved() {
+        return rowsSaved;
+    }
+
+    public Instant getCommittedAt() {
+        return committedAt;
+    }
+}
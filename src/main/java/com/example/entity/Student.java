@@ -7,8 +7,14 @@ import java.time.LocalDate;
 @Table(name = "students")
 public class Student {
 
+    // Sequence-backed ids keep Hibernate JDBC insert batching enabled (IDENTITY disables it).
+    // Each nextval reserves a block of ID_ALLOCATION_SIZE ids handed out by the pooled-lo optimizer.
+    public static final String ID_SEQUENCE = "students_seq";
+    public static final int ID_ALLOCATION_SIZE = 1000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "studentId")
     private Long studentId;
 
@@ -27,6 +33,10 @@ public class Student {
     @Column(name = "score", nullable = false)
     private Integer score;
 
+    // studentId from the source extract; natural key for merge uploads (null for append-only loads)
+    @Column(name = "sourceId", unique = true)
+    private Long sourceId;
+
     // Default constructor
     public Student() {}
 
@@ -89,6 +99,14 @@ public class Student {
         this.score = score;
     }
 
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
     @Override
     public String toString() {
         return "Student{" +
@@ -98,6 +116,7 @@ public class Student {
                 ", dob=" + dob +
                 ", className='" + className + '\'' +
                 ", score=" + score +
+                ", sourceId=" + sourceId +
                 '}';
     }
 }
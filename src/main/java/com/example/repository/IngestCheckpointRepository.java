@@ -0,0 +1,25 @@
+package com.example.repository;
+
+import com.example.entity.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, String> {
+
+    List<IngestCheckpoint> findByFingerprintOrderByBatchNo(String fingerprint);
+
+    @Query("SELECT c.batchNo FROM IngestCheckpoint c WHERE c.fingerprint = :fingerprint")
+    List<Integer> findBatchNumbers(@Param("fingerprint") String fingerprint);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IngestCheckpoint c WHERE c.fingerprint = :fingerprint")
+    int deleteByFingerprint(@Param("fingerprint") String fingerprint);
+}
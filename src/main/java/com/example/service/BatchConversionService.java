@@ -0,0 +1,252 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Many workbooks per request (uploaded side by side or inside zips), converted on one pool that is
+// shared by all batch requests and bounded by both cores and heap. However many files arrive, at
+// most that many conversions hold reader memory at once; the rest wait in the queue.
+@Service
+public class BatchConversionService {
+
+    @Autowired
+    private DataProcessingService dataProcessingService;
+
+    // 0: one per core, but never more than the max heap divided by memory-per-file-mb
+    @Value("${app.excel.batch-workers:0}")
+    private int batchWorkers;
+
+    @Value("${app.excel.batch-memory-per-file-mb:256}")
+    private int memoryPerFileMb;
+
+    // Zip uploads are extracted to temp files, so a zip bomb would otherwise fill the volume
+    @Value("${app.excel.batch-max-zip-entries:1000}")
+    private int maxZipEntries;
+
+    @Value("${app.excel.batch-max-entry-mb:1024}")
+    private long maxEntryMb;
+
+    @Value("${app.excel.batch-max-extracted-mb:4096}")
+    private long maxExtractedMb;
+
+    private ExecutorService batchExecutor;
+    private int workers;
+
+    @FunctionalInterface
+    private interface WorkbookInput {
+        InputStream open() throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        long maxHeapMb = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        int byMemory = (int) Math.max(1, maxHeapMb / Math.max(1, memoryPerFileMb));
+        workers = batchWorkers > 0 ? batchWorkers : Math.min(Runtime.getRuntime().availableProcessors(), byMemory);
+        System.out.println("Batch conversion pool: " + workers + " workers (" + maxHeapMb + " MB max heap)");
+
+        AtomicInteger threadIds = new AtomicInteger();
+        batchExecutor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "excel-batch-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    // Results come back in upload order, zip entries in archive order. A file that fails is reported
+    // and does not stop the others. Every batch writes into a folder of its own under the csv folder,
+    // so concurrent batches holding workbooks of the same name never overwrite each other's output.
+    // A zip over the extraction limits fails the whole batch with IllegalArgumentException
+    public Map<String, Object> convertAll(List<MultipartFile> files, boolean csvPerSheet, String format) throws IOException {
+        long startTime = System.currentTimeMillis();
+        String batchId = UUID.randomUUID().toString();
+        String outputFolder = "batch-" + batchId;
+        List<Future<Map<String, Object>>> conversions = new ArrayList<>();
+        List<Path> extracted = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        long[] extractedBytes = new long[1];
+        try {
+            for (MultipartFile file : files) {
+                String fileName = baseName(file.getOriginalFilename());
+                if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                    extractZip(file, extracted, extractedBytes, usedNames, conversions, csvPerSheet, format, outputFolder);
+                } else if (isExcelFileName(fileName)) {
+                    conversions.add(submit(uniqueName(fileName, usedNames), file::getInputStream, csvPerSheet, format, outputFolder));
+                } else {
+                    conversions.add(CompletableFuture.completedFuture(failed(fileName, "Not an Excel workbook or zip")));
+                }
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Future<Map<String, Object>> conversion : conversions) {
+                results.add(await(conversion));
+            }
+
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+            long totalRows = 0;
+            int succeeded = 0;
+            for (Map<String, Object> result : results) {
+                if (Boolean.TRUE.equals(result.get("success"))) {
+                    succeeded++;
+                    totalRows += ((Number) result.get("totalRows")).longValue();
+                }
+            }
+            System.out.println("Batch converted " + succeeded + " of " + results.size() + " workbooks, "
+                    + totalRows + " rows in " + duration + " ms");
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("batchId", batchId);
+            stats.put("files", results);
+            stats.put("fileCount", results.size());
+            stats.put("succeeded", succeeded);
+            stats.put("failed", results.size() - succeeded);
+            stats.put("workers", workers);
+            stats.put("totalRows", totalRows);
+            stats.put("durationMs", duration);
+            stats.put("rowsPerSecond", Math.round(totalRows / (duration / 1000.0)));
+            return stats;
+        } finally {
+            conversions.forEach(conversion -> conversion.cancel(true));
+            for (Path file : extracted) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Entries have to be copied out: the zip is read once, front to back, while conversions run
+    // concurrently. Folders, macOS metadata and non-Excel entries are skipped. Entry count and
+    // extracted bytes are capped, per entry and per batch (extractedBytes), counting the bytes
+    // actually inflated rather than the sizes the entry headers claim
+    private void extractZip(MultipartFile zip, List<Path> extracted, long[] extractedBytes, Set<String> usedNames,
+                            List<Future<Map<String, Object>>> conversions, boolean csvPerSheet, String format,
+                            String outputFolder) throws IOException {
+        int entries = 0;
+        try (ZipInputStream in = new ZipInputStream(zip.getInputStream())) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                if (++entries > maxZipEntries) {
+                    throw new IllegalArgumentException(zip.getOriginalFilename() + " has more than " + maxZipEntries + " entries");
+                }
+                String entryName = baseName(entry.getName());
+                if (entry.isDirectory() || entry.getName().startsWith("__MACOSX/") || entryName.startsWith("._")
+                        || !isExcelFileName(entryName)) {
+                    continue;
+                }
+                Path file = Files.createTempFile("batch-", "-" + entryName);
+                extracted.add(file);
+                extractedBytes[0] += copyEntry(in, file, entry.getName(), maxExtractedMb * 1024 * 1024 - extractedBytes[0]);
+                conversions.add(submit(uniqueName(entryName, usedNames), () -> Files.newInputStream(file), csvPerSheet,
+                        format, outputFolder));
+            }
+        }
+    }
+
+    // Copies the current entry, failing as soon as it passes the per-entry limit or the batch's remaining budget
+    private long copyEntry(InputStream in, Path file, String entryName, long remaining) throws IOException {
+        long entryLimit = maxEntryMb * 1024 * 1024;
+        long copied = 0;
+        byte[] buffer = new byte[65536];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                copied += n;
+                if (copied > entryLimit) {
+                    throw new IllegalArgumentException(entryName + " extracts to more than " + maxEntryMb + " MB");
+                }
+                if (copied > remaining) {
+                    throw new IllegalArgumentException("Zip entries extract to more than " + maxExtractedMb + " MB in total");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return copied;
+    }
+
+    private Future<Map<String, Object>> submit(String fileName, WorkbookInput input, boolean csvPerSheet, String format,
+                                               String outputFolder) {
+        long queuedAt = System.currentTimeMillis();
+        return batchExecutor.submit(() -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("fileName", fileName);
+            result.put("waitMs", System.currentTimeMillis() - queuedAt);
+            try (InputStream in = input.open()) {
+                result.putAll(dataProcessingService.convertExcelToCsv(in, fileName, csvPerSheet, format, outputFolder));
+                result.put("success", true);
+            } catch (Exception e) {
+                System.err.println("Batch conversion of " + fileName + " failed: " + e.getMessage());
+                result.put("success", false);
+                result.put("message", e.getMessage());
+            }
+            return result;
+        });
+    }
+
+    private static Map<String, Object> await(Future<Map<String, Object>> conversion) throws IOException {
+        try {
+            return conversion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting workbooks");
+        } catch (ExecutionException e) {
+            throw new IOException("Batch conversion failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static Map<String, Object> failed(String fileName, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("fileName", fileName);
+        result.put("success", false);
+        result.put("message", message);
+        return result;
+    }
+
+    // Two workbooks of the same name (say, from different folders of a zip) would write the same CSV
+    private static String uniqueName(String fileName, Set<String> usedNames) {
+        String candidate = fileName;
+        int dot = fileName.indexOf('.');
+        for (int n = 2; !usedNames.add(candidate.toLowerCase(Locale.ROOT)); n++) {
+            candidate = dot > 0 ? fileName.substring(0, dot) + "-" + n + fileName.substring(dot) : fileName + "-" + n;
+        }
+        return candidate;
+    }
+
+    private static String baseName(String name) {
+        if (name == null) return "";
+        return name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+    }
+
+    private static boolean isExcelFileName(String fileName) {
+        String name = InputDecompressor.stripCompressionExtension(fileName).toLowerCase(Locale.ROOT);
+        return name.endsWith(".xlsx") || name.endsWith(".xls");
+    }
+}
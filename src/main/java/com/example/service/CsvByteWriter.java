@@ -0,0 +1,179 @@
+package com.example.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// CSV output straight to UTF-8 bytes. Fields are encoded by hand into one large direct buffer that
+// is flushed through a channel, so there is no char buffer, no CharsetEncoder and no per-field
+// String concatenation. A field is quoted only when it contains a separator, quote or line break.
+// Not thread-safe.
+public final class CsvByteWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private boolean rowStarted;
+
+    public CsvByteWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvByteWriter(WritableByteChannel channel, int bufferSize) {
+        this(channel, ByteBuffer.allocateDirect(Math.max(bufferSize, 64)));
+    }
+
+    // Caller-supplied buffer, e.g. a heap one when the target is in memory and a direct buffer would
+    // only add allocation cost; it is cleared first
+    public CsvByteWriter(WritableByteChannel channel, ByteBuffer buffer) {
+        if (buffer.capacity() < 64) {
+            throw new IllegalArgumentException("CSV buffer must hold at least 64 bytes");
+        }
+        this.channel = channel;
+        this.buffer = buffer.clear();
+    }
+
+    // Creates or truncates the file
+    public static CsvByteWriter open(Path file) throws IOException {
+        return new CsvByteWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    public CsvByteWriter writeRow(String... fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    // null is written as an empty field
+    public CsvByteWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) return this;
+
+        boolean quote = needsQuotes(value);
+        // Worst case: 3 bytes per char, every char a doubled quote, plus the enclosing quotes
+        int maxBytes = value.length() * (quote ? 6 : 3) + 2;
+        if (maxBytes > buffer.capacity()) {
+            writeLarge(value, quote);
+            return this;
+        }
+        ensureRoom(maxBytes);
+        if (quote) buffer.put((byte) '"');
+        encode(value, quote);
+        if (quote) buffer.put((byte) '"');
+        return this;
+    }
+
+    public CsvByteWriter field(long value) throws IOException {
+        separator();
+        // Digits are produced backwards into scratch; accumulating negatively covers Long.MIN_VALUE
+        boolean negative = value < 0;
+        if (!negative) value = -value;
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) digits[--pos] = '-';
+        ensureRoom(digits.length - pos);
+        buffer.put(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    // Boxed ids and scores; null is written as an empty field, like a null String
+    public CsvByteWriter field(Number value) throws IOException {
+        if (value == null) return field((String) null);
+        return field(value.longValue());
+    }
+
+    public CsvByteWriter endRow() throws IOException {
+        ensureRoom(1);
+        buffer.put((byte) '\n');
+        rowStarted = false;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            ensureRoom(1);
+            buffer.put((byte) ',');
+        }
+        rowStarted = true;
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    // Caller guarantees room for the worst case
+    private void encode(String value, boolean doubleQuotes) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && doubleQuotes) buffer.put((byte) '"');
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // unpaired surrogate, as String.getBytes would write it
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    // Fields bigger than the buffer are rare; encode them on the heap and stream the bytes through
+    private void writeLarge(String value, boolean quote) throws IOException {
+        String text = quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            if (!buffer.hasRemaining()) flush();
+            int n = Math.min(buffer.remaining(), bytes.remaining());
+            buffer.put(buffer.position(), bytes, bytes.position(), n);
+            buffer.position(buffer.position() + n);
+            bytes.position(bytes.position() + n);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.service;
+
+import com.example.entity.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Staged CSV ingest: reader -> parser workers -> writer workers, joined by bounded queues.
+// Every writer holds its own pooled connection and commits one transaction per batch.
+@Service
+public class CsvIngestPipeline {
+
+    static final int BATCH_SIZE = 5000;
+    private static final long QUEUE_POLL_MS = 100;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private StudentBulkWriter studentBulkWriter;
+
+    @Autowired
+    private IngestCheckpointService checkpointService;
+
+    @Autowired
+    private RejectFileService rejectFileService;
+
+    @Value("${app.ingest.parser-threads:2}")
+    private int defaultParserThreads;
+
+    @Value("${app.ingest.writer-threads:4}")
+    private int defaultWriterThreads;
+
+    @Value("${app.ingest.max-writer-threads:16}")
+    private int maxWriterThreads;
+
+    @Value("${app.ingest.queue-capacity:8}")
+    private int queueCapacity;
+
+    // Raw lines handed from the reader to the parsers. Batch k always covers data lines
+    // [k * BATCH_SIZE + 1, (k + 1) * BATCH_SIZE], which is what makes checkpoints replayable.
+    private record RawChunk(int batchNo, long firstLine, StudentCsvTokenizer.Block lines) {}
+
+    // Parsed students handed from the parsers to the writers, with the source line of each student
+    private record StudentBatch(int batchNo, long firstLine, long lastLine, List<Student> students, long[] lineNumbers) {}
+
+    private record RejectedRow(int index, SQLException cause) {}
+
+    private static final RawChunk END_OF_LINES = new RawChunk(-1, -1, null);
+    private static final StudentBatch END_OF_BATCHES = new StudentBatch(-1, -1, -1, List.of(), new long[0]);
+
+    public IngestProgress run(InputStream csvStream, Integer writerThreads) throws Exception {
+        return run(csvStream, writerThreads, new IngestProgress());
+    }
+
+    // Runs with a caller-supplied progress so it can be polled or cancelled from another thread.
+    // A cancelled run rolls back the batches still in flight and returns normally.
+    public IngestProgress run(InputStream csvStream, Integer writerThreads, IngestProgress progress) throws Exception {
+        return run(csvStream, writerThreads, progress, null);
+    }
+
+    // With a fingerprint, every committed batch is checkpointed in its own transaction and
+    // batches already checkpointed for that fingerprint are skipped, so a rerun resumes
+    public IngestProgress run(InputStream csvStream, Integer writerThreads, IngestProgress progress,
+                              String fingerprint) throws Exception {
+        int writers = writerThreads != null ? writerThreads : defaultWriterThreads;
+        if (writers < 1 || writers > maxWriterThreads) {
+            throw new IllegalArgumentException("Writer threads must be between 1 and " + maxWriterThreads);
+        }
+        int parsers = Math.max(1, defaultParserThreads);
+
+        progress.start();
+        progress.setThreads(parsers, writers);
+        if (progress.getRejects() == null) {
+            progress.setRejects(rejectFileService.open());
+        }
+        RejectCollector rejects = progress.getRejects();
+        try (Connection connection = dataSource.getConnection()) {
+            progress.setLoadMethod(studentBulkWriter.loadMethod(connection));
+        }
+
+        Set<Integer> committedBatches = fingerprint != null ? checkpointService.committedBatches(fingerprint) : Set.of();
+        if (!committedBatches.isEmpty()) {
+            System.out.println("Resuming ingest: " + committedBatches.size() + " batch(es) already committed for this file");
+        }
+
+        BlockingQueue<RawChunk> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<StudentBatch> batchQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parsers + writers, r -> {
+            Thread t = new Thread(r, "csv-ingest-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        System.out.println("Starting pipelined CSV ingest with " + parsers + " parser(s) and " + writers + " writer(s)...");
+
+        AtomicInteger parsersRunning = new AtomicInteger(parsers);
+        try {
+            for (int i = 0; i < parsers; i++) {
+                workers.submit(() -> {
+                    try {
+                        parseLoop(rawQueue, batchQueue, progress, rejects);
+                    } catch (Throwable t) {
+                        progress.fail(t);
+                    } finally {
+                        // Last parser out tells every writer there is no more work
+                        if (parsersRunning.decrementAndGet() == 0) {
+                            signalEnd(batchQueue, END_OF_BATCHES, writers, progress);
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < writers; i++) {
+                workers.submit(() -> {
+                    try {
+                        writeLoop(batchQueue, progress, fingerprint, rejects);
+                    } catch (Throwable t) {
+                        progress.fail(t);
+                    }
+                });
+            }
+
+            try {
+                readLoop(new CountingInputStream(csvStream, progress), rawQueue, progress, committedBatches);
+            } catch (Throwable t) {
+                progress.fail(t);
+            } finally {
+                signalEnd(rawQueue, END_OF_LINES, parsers, progress);
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            rejects.close();
+            progress.finish();
+        }
+
+        System.out.println("Pipelined ingest " + (progress.isCancelled() ? "cancelled" : "finished") + ": saved "
+                + progress.getRowsSaved() + " records in " + progress.getElapsedMs() + " ms, rejected " + rejects.getTotal() + " line(s)");
+        if (progress.isFailed()) {
+            Throwable failure = progress.getFailure();
+            throw failure instanceof Exception e ? e : new RuntimeException(failure);
+        }
+        return progress;
+    }
+
+    private void readLoop(InputStream csvStream, BlockingQueue<RawChunk> rawQueue, IngestProgress progress,
+                          Set<Integer> committedBatches) throws Exception {
+        // The reader only cuts the input into blocks of whole records; tokenizing happens on the parsers.
+        // Compressed input is counted before decoding, so progress tracks the bytes actually uploaded.
+        try (InputStreamReader in = new InputStreamReader(InputDecompressor.wrap(csvStream), StandardCharsets.UTF_8)) {
+            StudentCsvTokenizer tokenizer = new StudentCsvTokenizer(in);
+            // Skip header row
+            tokenizer.readBlock(1);
+
+            long lineNumber = 0;
+            int batchNo = 0;
+            while (!progress.isStopped()) {
+                long start = System.nanoTime();
+                StudentCsvTokenizer.Block lines = tokenizer.readBlock(BATCH_SIZE);
+                if (lines == null) break;
+                progress.reader.record(lines.records(), start, System.nanoTime());
+
+                if (committedBatches.contains(batchNo)) {
+                    // Committed by an earlier run of the same file
+                    progress.batchesSkipped.incrementAndGet();
+                    progress.linesSkipped.addAndGet(lines.records());
+                } else {
+                    offer(rawQueue, new RawChunk(batchNo, lineNumber + 1, lines), progress);
+                }
+                lineNumber += lines.records();
+                batchNo++;
+            }
+        }
+    }
+
+    private void parseLoop(BlockingQueue<RawChunk> rawQueue, BlockingQueue<StudentBatch> batchQueue,
+                           IngestProgress progress, RejectCollector rejects) throws InterruptedException, IOException {
+        // One string cache per parser thread, reused across chunks
+        StudentCsvTokenizer.StringCache cache = new StudentCsvTokenizer.StringCache();
+        while (true) {
+            RawChunk chunk = poll(rawQueue, progress);
+            if (chunk == null || chunk == END_OF_LINES) return;
+
+            long start = System.nanoTime();
+            StudentCsvTokenizer.Block block = chunk.lines();
+            StudentCsvTokenizer line = new StudentCsvTokenizer(block.chars(), block.length(), cache);
+            List<Student> students = new ArrayList<>(block.records());
+            long[] lineNumbers = new long[block.records()];
+            long lineNumber = chunk.firstLine();
+            while (line.next()) {
+                try {
+                    Student student = StudentCsvMapper.toStudent(line);
+                    if (student != null) {
+                        lineNumbers[students.size()] = lineNumber;
+                        students.add(student);
+                    } else {
+                        rejects.reject(lineNumber, RejectCollector.INSUFFICIENT_COLUMNS, line.fieldCount() + " columns", line);
+                    }
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    rejects.reject(lineNumber, e, line);
+                }
+                lineNumber++;
+            }
+            progress.parser.record(students.size(), start, System.nanoTime());
+
+            offer(batchQueue, new StudentBatch(chunk.batchNo(), chunk.firstLine(), lineNumber - 1, students, lineNumbers), progress);
+        }
+    }
+
+    private void writeLoop(BlockingQueue<StudentBatch> batchQueue, IngestProgress progress,
+                           String fingerprint, RejectCollector rejects) throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            while (true) {
+                StudentBatch batch = poll(batchQueue, progress);
+                if (batch == null || batch == END_OF_BATCHES) return;
+
+                long start = System.nanoTime();
+                try {
+                    // Rows the database refuses are bisected out; the batch and its checkpoint still
+                    // commit together, and the refused rows are reported once that commit succeeds
+                    List<RejectedRow> refused = new ArrayList<>();
+                    int saved = studentBulkWriter.writeIsolatingBadRows(connection, StudentBulkWriter.STUDENT_TABLE,
+                            batch.students(), (index, cause) -> refused.add(new RejectedRow(index, cause)));
+                    if (fingerprint != null && !checkpointService.record(connection, fingerprint, batch.batchNo(),
+                            batch.firstLine(), batch.lastLine(), saved)) {
+                        // Another run committed this batch first; keep it exactly-once
+                        connection.rollback();
+                        progress.batchesSkipped.incrementAndGet();
+                        continue;
+                    }
+                    if (progress.isCancelled()) {
+                        // Never commit a batch once the run has been cancelled
+                        connection.rollback();
+                        return;
+                    }
+                    connection.commit();
+                    for (RejectedRow row : refused) {
+                        rejects.reject(batch.lineNumbers()[row.index()], row.cause(), batch.students().get(row.index()));
+                    }
+                    progress.writer.record(saved, start, System.nanoTime());
+                    progress.batchesCommitted.incrementAndGet();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // One end marker per consumer of the queue
+    private static <T> void signalEnd(BlockingQueue<T> queue, T marker, int consumers, IngestProgress progress) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                offer(queue, marker, progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail(e);
+        }
+    }
+
+    // Queue hand-off that gives up once another stage has failed, so a dead consumer
+    // can never leave a producer blocked on a full queue
+    private static <T> void offer(BlockingQueue<T> queue, T item, IngestProgress progress) throws InterruptedException {
+        while (!queue.offer(item, QUEUE_POLL_MS, TimeUnit.MILLISECONDS)) {
+            if (progress.isStopped()) return;
+        }
+    }
+
+    private static <T> T poll(BlockingQueue<T> queue, IngestProgress progress) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+            if (item != null) return item;
+            if (progress.isStopped()) return null;
+        }
+    }
+
+    // Tracks how much of the input has been consumed for progress and ETA reporting
+    private static class CountingInputStream extends FilterInputStream {
+        private final IngestProgress progress;
+
+        CountingInputStream(InputStream in, IngestProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) progress.bytesRead.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) progress.bytesRead.addAndGet(n);
+            return n;
+        }
+    }
+}
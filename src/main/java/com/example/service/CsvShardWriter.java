@@ -0,0 +1,245 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Student rows split over N CSV shards that are written in parallel. Every shard has its own writer
+// thread fed with row batches through a small bounded queue, so encoding and I/O of all shards
+// overlap with parsing. Producers (the sheet workers) each route rows through their own Router.
+// Every shard repeats the header, so each one loads on its own, and is SHA-256 summed as it is
+// written for the manifest.
+public final class CsvShardWriter {
+
+    public static final String SHARD_BY_ROWS = "rows";
+    public static final String SHARD_BY_HASH = "hash";
+    public static final int MAX_SHARDS = 64;
+
+    private static final int BATCH_ROWS = 1024;
+    private static final int QUEUED_BATCHES = 8;
+    private static final List<String[]> END = new ArrayList<>(); // compared by identity
+
+    private final int shardCount;
+    private final boolean byHash;
+    private final List<Path> files = new ArrayList<>();
+    private final List<BlockingQueue<List<String[]>>> queues = new ArrayList<>();
+    private final List<Future<Map<String, Object>>> writers = new ArrayList<>();
+    private final ExecutorService threads;
+    private final AtomicLong nextBlock = new AtomicLong();
+    private boolean finished;
+
+    // shardBy: SHARD_BY_ROWS deals 1024-row blocks round-robin, so shard sizes differ by at most a block;
+    // SHARD_BY_HASH puts every row of a student id in the same shard
+    public CsvShardWriter(Path dir, String baseName, int shardCount, String shardBy, String[] header) {
+        this.shardCount = shardCount;
+        this.byHash = SHARD_BY_HASH.equals(shardBy);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "csv-shard-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < shardCount; i++) {
+            Path file = dir.resolve(String.format("%s-shard-%03d-of-%03d.csv", baseName, i + 1, shardCount));
+            BlockingQueue<List<String[]>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+            files.add(file);
+            queues.add(queue);
+            writers.add(threads.submit(() -> writeShard(file, queue, header)));
+        }
+    }
+
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    // One per producing thread; not thread-safe
+    public Router router() {
+        return new Router();
+    }
+
+    // Call once every Router is flushed: waits for the shards to hit the disk and describes them in order
+    public List<Map<String, Object>> finish() throws IOException {
+        for (int i = 0; i < shardCount; i++) {
+            send(i, END);
+        }
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (Future<Map<String, Object>> writer : writers) {
+            shards.add(await(writer));
+        }
+        finished = true;
+        threads.shutdown();
+        return shards;
+    }
+
+    // After a failure: stops the writer threads and removes the partial shards. No-op once finished
+    public void abort() {
+        if (finished) return;
+        threads.shutdownNow();
+        try {
+            threads.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete shard " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public final class Router {
+        // By hash: a pending batch per shard. By rows: a single batch, dealt to the next shard when full
+        private final List<List<String[]>> pending = new ArrayList<>();
+
+        private Router() {
+            for (int i = 0; i < (byHash ? shardCount : 1); i++) {
+                pending.add(new ArrayList<>(BATCH_ROWS));
+            }
+        }
+
+        public void accept(String[] row) throws IOException {
+            int slot = byHash ? shardOf(row[0]) : 0;
+            List<String[]> batch = pending.get(slot);
+            batch.add(row);
+            if (batch.size() >= BATCH_ROWS) {
+                dispatch(slot);
+            }
+        }
+
+        // Hands over the partly filled batches; call when the producer is done
+        public void flush() throws IOException {
+            for (int slot = 0; slot < pending.size(); slot++) {
+                if (!pending.get(slot).isEmpty()) dispatch(slot);
+            }
+        }
+
+        private void dispatch(int slot) throws IOException {
+            int shard = byHash ? slot : (int) (nextBlock.getAndIncrement() % shardCount);
+            send(shard, pending.get(slot));
+            pending.set(slot, new ArrayList<>(BATCH_ROWS));
+        }
+    }
+
+    // Stable across runs and JVMs: String.hashCode is specified, and the murmur3 finalizer spreads
+    // sequential ids evenly
+    private int shardOf(String studentId) {
+        int h = studentId != null ? studentId.hashCode() : 0;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shardCount);
+    }
+
+    // A writer that died would never drain its queue, so the producer checks on it instead of blocking forever
+    private void send(int shard, List<String[]> batch) throws IOException {
+        try {
+            while (!queues.get(shard).offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (writers.get(shard).isDone()) {
+                    await(writers.get(shard));
+                    throw new IOException("Shard writer " + (shard + 1) + " stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing shards");
+        }
+    }
+
+    private static Map<String, Object> await(Future<Map<String, Object>> writer) throws IOException {
+        try {
+            return writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing shards");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException("Shard writer failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static Map<String, Object> writeShard(Path file, BlockingQueue<List<String[]>> queue, String[] header)
+            throws IOException, InterruptedException {
+        MessageDigest sha256 = sha256();
+        long rows = 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try (CsvByteWriter writer = new CsvByteWriter(new DigestChannel(channel, sha256))) {
+            writer.writeRow(header);
+            for (List<String[]> batch = queue.take(); batch != END; batch = queue.take()) {
+                for (String[] row : batch) {
+                    writer.writeRow(row);
+                }
+                rows += batch.size();
+            }
+        }
+
+        Map<String, Object> shard = new LinkedHashMap<>();
+        shard.put("file", file.getFileName().toString());
+        shard.put("rows", rows);
+        shard.put("bytes", Files.size(file));
+        shard.put("sha256", HexFormat.of().formatHex(sha256.digest()));
+        return shard;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+
+    // Sums exactly the bytes that reach the file
+    private static final class DigestChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private final MessageDigest digest;
+
+        DigestChannel(WritableByteChannel channel, MessageDigest digest) {
+            this.channel = channel;
+            this.digest = digest;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int start = src.position();
+            int written = channel.write(src);
+            digest.update(src.duplicate().position(start).limit(start + written));
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package com.example.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pjfanning.xlsx.StreamingReader;
-import com.opencsv.CSVWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class DataProcessingService {
@@ -27,79 +43,537 @@ public class DataProcessingService {
     @Value("${app.file.storage.csv}")
     private String csvFolder;
 
-    public String convertExcelToCsv(MultipartFile excelFile) throws IOException {
-        // Create storage directory
-        String storagePath = getStoragePath();
-        Path csvDir = Paths.get(storagePath, csvFolder);
+    // Threads converting sheets, shared by all requests; 0 means one per core
+    @Value("${app.excel.sheet-workers:0}")
+    private int sheetWorkers;
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_PARQUET = "parquet";
+
+    static final String[] CSV_HEADER = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+
+    static final String READER_SAX = "sax";
+    static final String READER_STREAMING = "streaming";
+
+    // sax: StudentXlsxReader; streaming: excel-streaming-reader
+    @Value("${app.excel.reader:sax}")
+    private String excelReader;
+
+    private ExecutorService sheetExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void init() {
+        int threads = sheetWorkers > 0 ? sheetWorkers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        sheetExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "excel-sheet-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sheetExecutor.shutdownNow();
+    }
+
+    public Map<String, Object> convertExcelToCsv(MultipartFile excelFile, boolean csvPerSheet, String format) throws IOException {
+        return convertExcelToCsv(excelFile.getInputStream(), excelFile.getOriginalFilename(), csvPerSheet, format);
+    }
+
+    // Converts every sheet of the workbook. Sheets are parsed concurrently on the shared sheet pool;
+    // the output is either one file with the sheets in workbook order, or one file per sheet.
+    // format is FORMAT_CSV or FORMAT_PARQUET.
+    // Also used for raw request bodies, which reach the workbook reader without a multipart spill
+    public Map<String, Object> convertExcelToCsv(InputStream excelStream, String originalFilename, boolean csvPerSheet,
+                                                 String format) throws IOException {
+        return convertExcelToCsv(excelStream, originalFilename, csvPerSheet, format, null);
+    }
+
+    // subfolder (may be null): write the output into a folder of that name under the csv folder
+    public Map<String, Object> convertExcelToCsv(InputStream excelStream, String originalFilename, boolean csvPerSheet,
+                                                 String format, String subfolder) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path csvDir = outputDirectory(subfolder);
+
+        boolean parquet = FORMAT_PARQUET.equals(format);
+        String extension = parquet ? ".parquet" : ".csv";
+        String csvFileName = outputBaseName(originalFilename) + extension;
+        Path csvFilePath = csvDir.resolve(csvFileName);
+
+        // Workers open the sheets by index, which needs a seekable copy of the workbook
+        Path workbookFile = spoolWorkbook(excelStream);
+        List<Path> outputs = new ArrayList<>();
+        List<Path> parts = new ArrayList<>();
+        List<Future<Integer>> sheets = new ArrayList<>();
+        SheetSource source = null;
+        try {
+            source = openSheets(workbookFile);
+            SheetSource openSource = source; // effectively final for the workers
+            List<String> sheetNames = source.sheetNames();
+            if (sheetNames.isEmpty()) {
+                throw new IOException("Workbook contains no sheets");
+            }
+
+            // Merged CSV: sheet 0 writes the final file, later sheets write parts that are appended in order.
+            // Merged Parquet: every sheet writes a part, and the parts' row groups are combined under one footer
+            String baseName = outputBaseName(originalFilename);
+            for (int i = 0; i < sheetNames.size(); i++) {
+                if (csvPerSheet) {
+                    outputs.add(csvDir.resolve(sheetFileName(baseName, i, sheetNames.get(i), extension)));
+                } else if (i == 0 && !parquet) {
+                    outputs.add(csvFilePath);
+                } else {
+                    outputs.add(csvDir.resolve(csvFileName + ".part" + i));
+                    parts.add(outputs.get(i));
+                }
+            }
+            for (int i = 0; i < sheetNames.size(); i++) {
+                int sheetIndex = i;
+                boolean header = csvPerSheet || i == 0;
+                sheets.add(sheetExecutor.submit(() -> parquet
+                        ? convertSheetToParquet(openSource, sheetIndex, sheetNames.get(sheetIndex), outputs.get(sheetIndex))
+                        : convertSheet(openSource, sheetIndex, sheetNames.get(sheetIndex), outputs.get(sheetIndex), header)));
+            }
+
+            List<Integer> rowsBySheet = new ArrayList<>();
+            for (Future<Integer> sheet : sheets) {
+                rowsBySheet.add(awaitSheet(sheet));
+            }
+            if (!csvPerSheet && parquet) {
+                if (parts.size() == 1) {
+                    Files.move(parts.get(0), csvFilePath, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    StudentParquetWriter.merge(csvFilePath, parts);
+                }
+            } else if (!csvPerSheet) {
+                appendParts(csvFilePath, parts);
+            }
+
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+            int totalRows = rowsBySheet.stream().mapToInt(Integer::intValue).sum();
+            System.out.println("Converted " + totalRows + " rows from " + sheetNames.size() + " sheet(s) in " + duration + " ms");
+
+            Map<String, Object> stats = new HashMap<>();
+            String pathKey = parquet ? "parquetFilePath" : "csvFilePath";
+            if (csvPerSheet) {
+                stats.put(pathKey + "s", outputs.stream().map(Path::toString).toList());
+            } else {
+                stats.put(pathKey, csvFilePath.toString());
+            }
+            stats.put("format", parquet ? FORMAT_PARQUET : FORMAT_CSV);
+            stats.put("sheetCount", sheetNames.size());
+            stats.put("sheetNames", sheetNames);
+            stats.put("rowsBySheet", rowsBySheet);
+            stats.put("totalRows", totalRows);
+            stats.put("durationMs", duration);
+            stats.put("rowsPerSecond", Math.round(totalRows / (duration / 1000.0)));
+            return stats;
+        } finally {
+            // Stop sheets still queued or running after a failure, before their reader goes away
+            sheets.forEach(sheet -> sheet.cancel(true));
+            if (source != null) source.close();
+            deleteSpool(workbookFile);
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    public Map<String, Object> convertExcelToCsvShards(MultipartFile excelFile, int shardCount, String shardBy) throws IOException {
+        return convertExcelToCsvShards(excelFile.getInputStream(), excelFile.getOriginalFilename(), shardCount, shardBy);
+    }
+
+    // Splits the workbook's rows over shardCount CSV files written in parallel (see CsvShardWriter), plus
+    // <name>.manifest.json listing every shard with its row count and SHA-256, so downstream loaders
+    // can take the shards concurrently and check them first
+    public Map<String, Object> convertExcelToCsvShards(InputStream excelStream, String originalFilename, int shardCount,
+                                                       String shardBy) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path csvDir = outputDirectory(null);
+        String baseName = outputBaseName(originalFilename);
+        Path manifestPath = csvDir.resolve(baseName + ".manifest.json");
+
+        Path workbookFile = spoolWorkbook(excelStream);
+        List<Future<Integer>> sheets = new ArrayList<>();
+        SheetSource source = null;
+        CsvShardWriter shards = null;
+        try {
+            source = openSheets(workbookFile);
+            SheetSource openSource = source;
+            List<String> sheetNames = source.sheetNames();
+            if (sheetNames.isEmpty()) {
+                throw new IOException("Workbook contains no sheets");
+            }
+
+            CsvShardWriter shardWriter = new CsvShardWriter(csvDir, baseName, shardCount, shardBy, CSV_HEADER);
+            shards = shardWriter;
+            for (int i = 0; i < sheetNames.size(); i++) {
+                int sheetIndex = i;
+                sheets.add(sheetExecutor.submit(() -> {
+                    CsvShardWriter.Router router = shardWriter.router();
+                    int rows = openSource.forEachStudentRow(sheetIndex, (rowNum, out) -> {
+                        router.accept(out);
+
+                        if (rowNum % 100_000 == 0) {
+                            System.out.println("Processed rows: " + rowNum + " (sheet " + sheetNames.get(sheetIndex) + ")");
+                        }
+                    });
+                    router.flush();
+                    return rows;
+                }));
+            }
+
+            List<Integer> rowsBySheet = new ArrayList<>();
+            for (Future<Integer> sheet : sheets) {
+                rowsBySheet.add(awaitSheet(sheet));
+            }
+            List<Map<String, Object>> shardEntries = shardWriter.finish();
+            int totalRows = rowsBySheet.stream().mapToInt(Integer::intValue).sum();
+
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("source", originalFilename);
+            manifest.put("createdAt", Instant.now().toString());
+            manifest.put("shardBy", shardBy);
+            manifest.put("shardCount", shardCount);
+            manifest.put("totalRows", totalRows);
+            manifest.put("header", List.of(CSV_HEADER));
+            manifest.put("checksum", "sha256");
+            manifest.put("shards", shardEntries);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(manifestPath.toFile(), manifest);
+
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+            System.out.println("Converted " + totalRows + " rows from " + sheetNames.size() + " sheet(s) into "
+                    + shardCount + " shards in " + duration + " ms");
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("csvFilePaths", shardWriter.getFiles().stream().map(Path::toString).toList());
+            stats.put("manifestPath", manifestPath.toString());
+            stats.put("shardBy", shardBy);
+            stats.put("shardCount", shardCount);
+            stats.put("rowsByShard", shardEntries.stream().map(shard -> shard.get("rows")).toList());
+            stats.put("format", FORMAT_CSV);
+            stats.put("sheetCount", sheetNames.size());
+            stats.put("sheetNames", sheetNames);
+            stats.put("rowsBySheet", rowsBySheet);
+            stats.put("totalRows", totalRows);
+            stats.put("durationMs", duration);
+            stats.put("rowsPerSecond", Math.round(totalRows / (duration / 1000.0)));
+            return stats;
+        } finally {
+            sheets.forEach(sheet -> sheet.cancel(true));
+            if (shards != null) shards.abort();
+            if (source != null) source.close();
+            deleteSpool(workbookFile);
+        }
+    }
+
+    private Path outputDirectory(String subfolder) throws IOException {
+        Path csvDir = Paths.get(getStoragePath(), csvFolder);
+        if (subfolder != null) {
+            csvDir = csvDir.resolve(subfolder);
+        }
         Files.createDirectories(csvDir);
+        return csvDir;
+    }
 
-        // Generate CSV filename
-        String originalFilename = excelFile.getOriginalFilename();
+    // students.xlsx.gz -> students; client-supplied names must not escape the csv folder
+    private static String outputBaseName(String originalFilename) {
         if (originalFilename == null || originalFilename.trim().isEmpty()) {
             originalFilename = "uploaded_file.xlsx";
         }
-        String csvFileName = originalFilename.replaceAll("\\.xlsx?$", ".csv");
-        Path csvFilePath = csvDir.resolve(csvFileName);
+        originalFilename = originalFilename.substring(Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\')) + 1);
+        return InputDecompressor.stripCompressionExtension(originalFilename).replaceAll("\\.xlsx?$", "");
+    }
 
-        // Precompile date formats
-        DateTimeFormatter isoFormatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        DateTimeFormatter[] tryFormats = new DateTimeFormatter[]{
-                DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-                DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-                DateTimeFormatter.ofPattern("dd-MM-yyyy")
-        };
-        DataFormatter dataFormatter = new DataFormatter();
+    private int convertSheet(SheetSource source, int sheetIndex, String sheetName, Path output, boolean header) throws IOException {
+        try (CsvByteWriter csvWriter = CsvByteWriter.open(output)) {
 
-        // Streaming read & write
-        try (InputStream is = new BufferedInputStream(excelFile.getInputStream(), 64 * 1024);
-             Workbook workbook = StreamingReader.builder()
-                     .rowCacheSize(100)   // rows kept in memory
-                     .bufferSize(4096)    // read buffer size
-                     .open(is);
-             BufferedWriter bw = Files.newBufferedWriter(csvFilePath);
-             CSVWriter csvWriter = new CSVWriter(bw)) {
+            // Write header
+            if (header) {
+                csvWriter.writeRow(CSV_HEADER);
+            }
 
-            Sheet sheet = workbook.getSheetAt(0);
+            return source.forEachStudentRow(sheetIndex, (rowNum, out) -> {
+                csvWriter.writeRow(out);
 
-            // Write header
-            csvWriter.writeNext(new String[]{"studentId", "firstName", "lastName", "DOB", "class", "score"});
+                // Progress logging every 100k rows; the writer flushes on its own as its buffer fills
+                if (rowNum % 100_000 == 0) {
+                    System.out.println("Processed rows: " + rowNum + " (sheet " + sheetName + ")");
+                }
+            });
+        }
+    }
+
+    // Typed columns in row groups; parquet-column takes care of flushing as the sheet streams through
+    private int convertSheetToParquet(SheetSource source, int sheetIndex, String sheetName, Path output) throws IOException {
+        try (StudentParquetWriter parquetWriter = StudentParquetWriter.open(output)) {
+            return source.forEachStudentRow(sheetIndex, (rowNum, out) -> {
+                parquetWriter.writeRow(out);
+
+                if (rowNum % 100_000 == 0) {
+                    System.out.println("Processed rows: " + rowNum + " (sheet " + sheetName + ")");
+                }
+            });
+        }
+    }
+
+    private static int awaitSheet(Future<Integer> sheet) throws IOException {
+        try {
+            return sheet.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting sheets");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException("Sheet conversion failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    // students.xlsx, sheet "Year 1" -> students-1-Year_1.csv; the index keeps names unique and ordered
+    private static String sheetFileName(String baseName, int sheetIndex, String sheetName, String extension) {
+        return baseName + "-" + (sheetIndex + 1) + "-" + sheetName.replaceAll("[^A-Za-z0-9._-]", "_") + extension;
+    }
+
+    // Kernel-side copy of the part files onto the end of the merged CSV
+    private static void appendParts(Path target, List<Path> parts) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long position = 0; position < size; ) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+                Files.delete(part);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface StudentRowHandler<E extends Exception> {
+        // rowNum is the 1-based spreadsheet row; row holds the six CSV columns, score already +10
+        void accept(int rowNum, String[] row) throws E;
+    }
 
-            int rowNum = 0;
-            for (Row row : sheet) {
-                // skip header row in Excel
-                if (rowNum++ == 0) continue;
+    // Streams every sheet in workbook order and hands each data row to the handler in the CSV
+    // layout convertExcelToCsv writes, so the database can be loaded without an intermediate file
+    public <E extends Exception> int forEachStudentRow(InputStream excelStream, StudentRowHandler<E> handler) throws IOException, E {
+        Path workbookFile = spoolWorkbook(excelStream);
+        try (SheetSource source = openSheets(workbookFile)) {
+            int totalRows = 0;
+            for (int i = 0; i < source.sheetNames().size(); i++) {
+                totalRows += source.forEachStudentRow(i, handler);
+            }
+            return totalRows;
+        } finally {
+            deleteSpool(workbookFile);
+        }
+    }
+
+    // Every reader needs random access to the zip (or, for .xls, the OLE2 container), so uploads are copied to a temp file first
+    // (excel-streaming-reader used to make the same copy internally).
+    // .xlsx.gz / .xlsx.zst are decompressed on the fly
+    private static Path spoolWorkbook(InputStream excelStream) throws IOException {
+        Path workbookFile = Files.createTempFile("excel-", ".xlsx");
+        try (InputStream is = InputDecompressor.wrap(excelStream)) {
+            Files.copy(is, workbookFile, StandardCopyOption.REPLACE_EXISTING);
+            return workbookFile;
+        } catch (IOException e) {
+            deleteSpool(workbookFile);
+            throw e;
+        }
+    }
 
-                String[] out = new String[6];
+    private static void deleteSpool(Path workbookFile) {
+        try {
+            Files.deleteIfExists(workbookFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete workbook spool " + workbookFile + ": " + e.getMessage());
+        }
+    }
 
-                // studentId
-                out[0] = safeGetString(row, 0, dataFormatter, String.valueOf(rowNum));
+    private SheetSource openSheets(Path workbookFile) throws IOException {
+        return openSheets(workbookFile, excelReader);
+    }
 
-                // firstName
-                out[1] = safeGetString(row, 1, dataFormatter, "");
+    // Legacy .xls (OLE2) workbooks always go through the HSSF event reader, whatever the xlsx reader setting
+    static SheetSource openSheets(Path workbookFile, String reader) throws IOException {
+        if (FileMagic.valueOf(workbookFile.toFile()) == FileMagic.OLE2) {
+            return new XlsSheets(StudentXlsReader.open(workbookFile));
+        }
+        return READER_STREAMING.equals(reader)
+                ? new StreamingSheets(workbookFile)
+                : new SaxSheets(StudentXlsxReader.open(workbookFile));
+    }
 
-                // lastName
-                out[2] = safeGetString(row, 2, dataFormatter, "");
+    // Where sheet rows come from; both sources produce identical rows
+    interface SheetSource extends Closeable {
+        List<String> sheetNames();
 
-                // DOB
-                out[3] = extractDateFast(row.getCell(3), dataFormatter, isoFormatter, tryFormats);
+        // Data rows of one sheet in the CSV layout; safe to call for different sheets concurrently
+        <E extends Exception> int forEachStudentRow(int sheetIndex, StudentRowHandler<E> handler) throws IOException, E;
 
-                // class
-                out[4] = safeGetString(row, 4, dataFormatter, "");
+        @Override
+        void close();
+    }
 
-                // score (+10)
-                out[5] = computeScore(row.getCell(5), dataFormatter);
+    // StudentXlsxReader: StAX over the sheet XML, shared strings memory-mapped and shared by all sheets
+    static final class SaxSheets implements SheetSource {
+        private final StudentXlsxReader reader;
 
-                csvWriter.writeNext(out);
+        SaxSheets(StudentXlsxReader reader) {
+            this.reader = reader;
+        }
 
-                // Progress logging & flush every 100k rows
-                if (rowNum % 100_000 == 0) {
-                    System.out.println("Processed rows: " + rowNum);
-                    bw.flush();
+        StudentXlsxReader reader() {
+            return reader;
+        }
+
+        @Override
+        public List<String> sheetNames() {
+            return reader.sheetNames();
+        }
+
+        @Override
+        public <E extends Exception> int forEachStudentRow(int sheetIndex, StudentRowHandler<E> handler) throws IOException, E {
+            return Math.max(reader.forEachRow(sheetIndex, studentRows(handler)) - 1, 0);
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+
+    // StudentXlsReader: HSSF record events, one sheet at a time from its offset in the workbook stream
+    static final class XlsSheets implements SheetSource {
+        private final StudentXlsReader reader;
+
+        XlsSheets(StudentXlsReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<String> sheetNames() {
+            return reader.sheetNames();
+        }
+
+        @Override
+        public <E extends Exception> int forEachStudentRow(int sheetIndex, StudentRowHandler<E> handler) throws IOException, E {
+            return Math.max(reader.forEachRow(sheetIndex, studentRows(handler)) - 1, 0);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Skips the header row and maps the rest to the CSV layout; one per sheet pass
+    private static <E extends Exception> StudentXlsxReader.RowHandler<E> studentRows(StudentRowHandler<E> handler) {
+        StudentValueNormalizer normalizer = new StudentValueNormalizer();
+        return (rowNum, row) -> {
+            // skip header row in Excel
+            if (rowNum == 1) return;
+            handler.accept(rowNum, toStudentRow(rowNum, row, normalizer));
+        };
+    }
+
+    // excel-streaming-reader, kept as a fallback (app.excel.reader=streaming) and benchmark baseline.
+    // Each sheet opens its own workbook; streaming workbooks are not safe to share between threads.
+    static final class StreamingSheets implements SheetSource {
+        private final Path workbookFile;
+        private final List<String> sheetNames;
+
+        StreamingSheets(Path workbookFile) throws IOException {
+            this.workbookFile = workbookFile;
+            try (Workbook workbook = openStreaming(workbookFile)) {
+                List<String> names = new ArrayList<>();
+                for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                    names.add(workbook.getSheetName(i));
                 }
+                this.sheetNames = names;
+            }
+        }
+
+        @Override
+        public List<String> sheetNames() {
+            return sheetNames;
+        }
+
+        @Override
+        public <E extends Exception> int forEachStudentRow(int sheetIndex, StudentRowHandler<E> handler) throws IOException, E {
+            try (Workbook workbook = openStreaming(workbookFile)) {
+                return DataProcessingService.forEachStudentRow(workbook.getSheetAt(sheetIndex), handler);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static Workbook openStreaming(Path workbookFile) throws IOException {
+            try {
+                return StreamingReader.builder()
+                        .rowCacheSize(100)   // rows kept in memory
+                        .bufferSize(4096)    // read buffer size
+                        .open(workbookFile.toFile());
+            } catch (RuntimeException e) {
+                throw new IOException("Not a readable .xlsx workbook: " + e.getMessage(), e);
             }
         }
+    }
 
-        return csvFilePath.toString();
+    // Same mapping as the Cell-based path below, but types come from the cell XML, no DataFormatter
+    private static String[] toStudentRow(int rowNum, StudentXlsxReader.Row row, StudentValueNormalizer normalizer) {
+        String[] out = new String[6];
+        out[0] = textOrDefault(row.text(0), String.valueOf(rowNum));
+        out[1] = textOrDefault(row.text(1), "");
+        out[2] = textOrDefault(row.text(2), "");
+        out[3] = row.isDate(3) ? normalizer.excelDate(row.number(3), row.isDate1904()) : normalizer.date(row.text(3));
+        out[4] = textOrDefault(row.text(4), "");
+        out[5] = row.isNumber(5) ? normalizer.score(row.number(5)) : normalizer.score(row.text(5));
+        return out;
+    }
+
+    private static <E extends Exception> int forEachStudentRow(Sheet sheet, StudentRowHandler<E> handler) throws E {
+        // DataFormatter is not thread-safe, one per sheet
+        DataFormatter dataFormatter = new DataFormatter();
+        StudentValueNormalizer normalizer = new StudentValueNormalizer();
+
+        int rowNum = 0;
+        for (Row row : sheet) {
+            // skip header row in Excel
+            if (rowNum++ == 0) continue;
+
+            // Numbered by sheet row like the SAX readers, so blank rows don't shift default ids
+            int sheetRow = row.getRowNum() + 1;
+            String[] out = new String[6];
+
+            // studentId
+            out[0] = safeGetString(row, 0, dataFormatter, String.valueOf(sheetRow));
+
+            // firstName
+            out[1] = safeGetString(row, 1, dataFormatter, "");
+
+            // lastName
+            out[2] = safeGetString(row, 2, dataFormatter, "");
+
+            // DOB
+            out[3] = extractDateFast(row.getCell(3), dataFormatter, normalizer);
+
+            // class
+            out[4] = safeGetString(row, 4, dataFormatter, "");
+
+            // score (+10)
+            out[5] = computeScore(row.getCell(5), dataFormatter, normalizer);
+
+            handler.accept(sheetRow, out);
+        }
+        return Math.max(rowNum - 1, 0);
     }
 
     // Helpers
@@ -110,46 +584,36 @@ public class DataProcessingService {
         return (s == null || s.trim().isEmpty()) ? defaultVal : s;
     }
 
-    private static String extractDateFast(Cell dateCell, DataFormatter formatter,
-                                          DateTimeFormatter isoFormatter, DateTimeFormatter[] tryFormats) {
-        if (dateCell == null) return LocalDate.now().toString();
+    private static String textOrDefault(String s, String defaultVal) {
+        return (s == null || s.trim().isEmpty()) ? defaultVal : s;
+    }
+
+    private static String extractDateFast(Cell dateCell, DataFormatter formatter, StudentValueNormalizer normalizer) {
+        if (dateCell == null) return normalizer.today();
         try {
-            if (DateUtil.isCellDateFormatted(dateCell)) {
+            // isCellDateFormatted throws for text cells, which used to turn every text DOB into today.
+            // Checking the type first means text DOBs are now parsed and kept (behavior change)
+            if (dateCell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(dateCell)) {
                 return dateCell.getLocalDateTimeCellValue().toLocalDate().toString();
             }
-            String dateStr = formatter.formatCellValue(dateCell).trim();
-            if (dateStr.isEmpty()) return LocalDate.now().toString();
-
-            if (dateStr.length() >= 10 && dateStr.charAt(4) == '-' && dateStr.charAt(7) == '-') {
-                return dateStr.substring(0, 10);
-            }
-            for (DateTimeFormatter f : tryFormats) {
-                try {
-                    LocalDate d = LocalDate.parse(dateStr, f);
-                    return d.toString();
-                } catch (Exception ignored) {}
-            }
+            return normalizer.date(cellText(dateCell, formatter));
         } catch (Exception e) {
             // ignore, fallback below
         }
-        return LocalDate.now().toString();
+        return normalizer.today();
     }
 
-    private static String computeScore(Cell scoreCell, DataFormatter formatter) {
-        if (scoreCell == null) return "70"; // default (60+10)
-        try {
-            if (scoreCell.getCellType() == CellType.NUMERIC) {
-                int val = (int) Math.round(scoreCell.getNumericCellValue());
-                return String.valueOf(val + 10);
-            } else {
-                String s = formatter.formatCellValue(scoreCell).trim();
-                if (s.isEmpty()) return "70";
-                int val = Integer.parseInt(s.replaceAll("[^0-9-]", ""));
-                return String.valueOf(val + 10);
-            }
-        } catch (Exception e) {
-            return "70";
+    private static String computeScore(Cell scoreCell, DataFormatter formatter, StudentValueNormalizer normalizer) {
+        if (scoreCell == null) return normalizer.score((String) null);
+        if (scoreCell.getCellType() == CellType.NUMERIC) {
+            return normalizer.score(scoreCell.getNumericCellValue());
         }
+        return normalizer.score(cellText(scoreCell, formatter));
+    }
+
+    // Text cells need no DataFormatter pass
+    private static String cellText(Cell cell, DataFormatter formatter) {
+        return cell.getCellType() == CellType.STRING ? cell.getStringCellValue() : formatter.formatCellValue(cell);
     }
 
     private static boolean isDateCell(Cell cell) {
@@ -2,149 +2,359 @@ package com.example.service;
 
 import com.example.entity.Student;
 import com.example.repository.StudentRepository;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class DatabaseService {
 
+    // The pipeline's batch size, so synchronous and async loads of a file share its checkpoints
+    private static final int BATCH_SIZE = CsvIngestPipeline.BATCH_SIZE;
+
     @Autowired
     private StudentRepository studentRepository;
 
-    public int uploadCsvToDatabase(MultipartFile csvFile) throws IOException, CsvValidationException {
+    @Autowired
+    private StudentBulkWriter studentBulkWriter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CsvIngestPipeline csvIngestPipeline;
+
+    @Autowired
+    private StudentMergeService studentMergeService;
+
+    @Autowired
+    private RejectFileService rejectFileService;
+
+    @Autowired
+    private DataProcessingService dataProcessingService;
+
+    @Autowired
+    private IngestCheckpointService checkpointService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Every batch, and every trial save while isolating a batch's bad rows, runs in a transaction of its own
+    private TransactionTemplate batchTransaction;
+
+    @PostConstruct
+    public void init() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // A multipart upload can be read twice: once for its fingerprint, then to load it with checkpoints,
+    // so a failed synchronous upload resumes like an async job when the file is uploaded again
+    public Map<String, Object> uploadCsvToDatabase(MultipartFile csvFile) throws IOException {
+        String fingerprint;
+        try (DigestInputStream in = IngestCheckpointService.fingerprinting(csvFile.getInputStream())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            fingerprint = IngestCheckpointService.fingerprintOf(in);
+        }
+        return uploadCsvToDatabase(csvFile.getInputStream(), fingerprint);
+    }
+
+    // The InputStream variants also serve raw request bodies, parsed as the bytes arrive.
+    // Bad lines go to the run's reject file; the result only carries counts per reason.
+    public Map<String, Object> uploadCsvToDatabase(InputStream csv) throws IOException {
+        return uploadCsvToDatabase(csv, null);
+    }
+
+    // Batch k is data lines [k * BATCH_SIZE + 1, (k + 1) * BATCH_SIZE], as in the ingest pipeline. With a
+    // fingerprint every batch commits together with its checkpoint, and batches checkpointed by an
+    // earlier run of the same file (synchronous or async) are skipped without being parsed
+    public Map<String, Object> uploadCsvToDatabase(InputStream csv, String fingerprint) throws IOException {
         int totalSaved = 0;
-        int batchSize = 5000; // Optimized batch size for 1M records
+        int batchSize = BATCH_SIZE;
         List<Student> batch = new ArrayList<>(batchSize);
+        long[] batchLines = new long[batchSize]; // source line of each batch row, for reject reporting
         int totalLines = 0;
-        int errorLines = 0;
+        int linesSkipped = 0;
         
-        // Disable auto-commit for better performance
+        Set<Integer> committedBatches = fingerprint != null ? checkpointService.committedBatches(fingerprint) : Set.of();
+        if (!committedBatches.isEmpty()) {
+            System.out.println("Resuming upload: " + committedBatches.size() + " batch(es) already committed for this file");
+        }
         System.out.println("Starting optimized CSV to database upload...");
 
-        try (CSVReader reader = new CSVReader(new InputStreamReader(csvFile.getInputStream()))) {
+        try (InputStreamReader in = new InputStreamReader(InputDecompressor.wrap(csv), StandardCharsets.UTF_8);
+             RejectCollector rejects = rejectFileService.open()) {
+            StudentCsvTokenizer line = new StudentCsvTokenizer(in);
             // Skip header row
-            String[] header = reader.readNext();
-            System.out.println("CSV Header: " + String.join(",", header));
-            System.out.println("Detected columns: " + header.length);
-            
-            if (header.length == 6) {
-                System.out.println("Expected format: studentId, firstName, lastName, DOB, className, score");
-            } else if (header.length >= 7) {
-                System.out.println("Detected format: studentId, firstName, lastName, age, email, className, score, year");
-                System.out.println("Note: Converting age to approximate birth year, ignoring email and year fields");
-            } else {
-                System.out.println("Warning: Unexpected column count. Expected 6 or 7+ columns.");
+            if (line.next()) {
+                logHeader(line.fields());
             }
             
-            String[] line;
-            while ((line = reader.readNext()) != null) {
+            while (line.next()) {
                 totalLines++;
+                int batchNo = (totalLines - 1) / batchSize;
                 
-                if (line.length >= 7) { // Expect 7 columns: id, firstName, lastName, age, email, className, score, year
-                    try {
-                        Student student = new Student();
-                        
-                        // Parse student data from CSV (skip studentId - let database auto-generate)
-                        // student.setStudentId(Long.parseLong(line[0])); // Skip this - let DB auto-generate
-                        student.setFirstName(line[1]);
-                        student.setLastName(line[2]);
-                        
-                        // Handle age field (convert to approximate birth year)
-                        int age = Integer.parseInt(line[3]);
-                        int currentYear = LocalDate.now().getYear();
-                        int birthYear = currentYear - age;
-                        student.setDob(LocalDate.of(birthYear, 1, 1)); // Use January 1st as default
-                        
-                        student.setClassName(line[5]); // className is at index 5
-                        
-                        // Update score by +5 (as per requirements: CSV score + 5 = Database score)
-                        int originalScore = Integer.parseInt(line[6]); // score is at index 6
-                        student.setScore(originalScore + 5);
-                        
-                        batch.add(student);
-                        
-                        // Save batch when it reaches the batch size
-                        if (batch.size() >= batchSize) {
-                            totalSaved += saveBatchOptimized(batch);
-                            batch.clear();
-                            
-                            // Force garbage collection every 10 batches to prevent memory buildup
-                            if ((totalSaved / batchSize) % 10 == 0) {
-                                System.gc();
-                            }
-                            
-                            // Progress logging
-                            if (totalLines % 100000 == 0) {
-                                System.out.println("Processed " + totalLines + " lines, saved " + totalSaved + " records...");
-                            }
-                        }
-                    } catch (NumberFormatException | DateTimeParseException e) {
-                        // Log error but continue processing other records
-                        errorLines++;
-                        System.err.println("Error parsing line " + totalLines + ": " + String.join(",", line) + " - " + e.getMessage());
-                        continue;
-                    }
-                } else if (line.length >= 6) {
-                    // Fallback for 6-column format (id, firstName, lastName, dob, className, score)
+                if (committedBatches.contains(batchNo)) {
+                    // Committed by an earlier run of the same file
+                    linesSkipped++;
+                } else if (line.fieldCount() >= 6) {
                     try {
-                        Student student = new Student();
-                        
-                        // student.setStudentId(Long.parseLong(line[0])); // Skip this - let DB auto-generate
-                        student.setFirstName(line[1]);
-                        student.setLastName(line[2]);
-                        student.setDob(LocalDate.parse(line[3], DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                        student.setClassName(line[4]);
-                        
-                        int originalScore = Integer.parseInt(line[5]);
-                        student.setScore(originalScore + 5);
-                        
+                        // studentId is skipped - let the database auto-generate it
+                        Student student = StudentCsvMapper.toStudent(line);
+                        batchLines[batch.size()] = totalLines;
                         batch.add(student);
-                        
-                        if (batch.size() >= batchSize) {
-                            totalSaved += saveBatchOptimized(batch);
-                            batch.clear();
-                            
-                            // Force garbage collection every 10 batches to prevent memory buildup
-                            if ((totalSaved / batchSize) % 10 == 0) {
-                                System.gc();
-                            }
-                        }
                     } catch (NumberFormatException | DateTimeParseException e) {
-                        errorLines++;
-                        System.err.println("Error parsing line " + totalLines + ": " + String.join(",", line) + " - " + e.getMessage());
-                        continue;
+                        // Record the error but continue processing other records
+                        rejects.reject(totalLines, e, line);
                     }
                 } else {
-                    errorLines++;
-                    System.err.println("Skipping line " + totalLines + " (insufficient columns): " + String.join(",", line));
+                    rejects.reject(totalLines, RejectCollector.INSUFFICIENT_COLUMNS, line.fieldCount() + " columns", line);
+                }
+
+                // Save the batch at the end of its lines
+                if (totalLines % batchSize == 0 && !committedBatches.contains(batchNo)) {
+                    totalSaved += saveBatchOptimized(batch, batchLines, rejects, fingerprint, batchNo, totalLines);
+                    batch.clear();
+                    
+                    // Progress logging
+                    if (totalLines % 100000 == 0) {
+                        System.out.println("Processed " + totalLines + " lines, saved " + totalSaved + " records...");
+                    }
                 }
             }
             
-            // Save remaining records in the last batch
-            if (!batch.isEmpty()) {
-                totalSaved += saveBatchOptimized(batch);
+            // Save remaining records in the last, partial batch
+            int lastBatchNo = (totalLines - 1) / batchSize;
+            if (totalLines % batchSize != 0 && !committedBatches.contains(lastBatchNo)
+                    && (!batch.isEmpty() || fingerprint != null)) {
+                totalSaved += saveBatchOptimized(batch, batchLines, rejects, fingerprint, lastBatchNo, totalLines);
+            }
+
+            long errorLines = rejects.getTotal();
+            System.out.println("CSV Processing Summary:");
+            System.out.println("Total lines processed: " + totalLines);
+            System.out.println("Lines with errors: " + errorLines);
+            System.out.println("Successfully saved: " + totalSaved);
+            System.out.println("Success rate: " + String.format("%.2f%%", (double)(totalLines - errorLines) / totalLines * 100));
+
+            Map<String, Object> stats = new HashMap<>(rejects.toMap());
+            stats.put("recordsUploaded", totalSaved);
+            stats.put("totalLines", totalLines);
+            if (fingerprint != null) {
+                stats.put("fingerprint", fingerprint);
+                stats.put("linesSkipped", linesSkipped);
+            }
+            return stats;
+        }
+    }
+
+    // Bulk-load mode: COPY FROM STDIN on PostgreSQL, multi-row JDBC batches elsewhere
+    public Map<String, Object> uploadCsvWithBulkLoad(MultipartFile csvFile) throws IOException, SQLException {
+        return uploadCsvWithBulkLoad(csvFile.getInputStream());
+    }
+
+    public Map<String, Object> uploadCsvWithBulkLoad(InputStream csv) throws IOException, SQLException {
+        long startTime = System.currentTimeMillis();
+        int totalSaved = 0;
+        int totalLines = 0;
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        long[] batchLines = new long[BATCH_SIZE];
+        String loadMethod;
+        RejectCollector rejects = rejectFileService.open();
+
+        System.out.println("Starting bulk-load CSV to database upload...");
+
+        try (InputStreamReader in = new InputStreamReader(InputDecompressor.wrap(csv), StandardCharsets.UTF_8);
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            loadMethod = studentBulkWriter.loadMethod(connection);
+            System.out.println("Bulk-load method: " + loadMethod);
+
+            StudentCsvTokenizer line = new StudentCsvTokenizer(in);
+            if (line.next()) {
+                logHeader(line.fields());
+            }
+
+            while (line.next()) {
+                totalLines++;
+                try {
+                    Student student = StudentCsvMapper.toStudent(line);
+                    if (student == null) {
+                        rejects.reject(totalLines, RejectCollector.INSUFFICIENT_COLUMNS, line.fieldCount() + " columns", line);
+                        continue;
+                    }
+                    batchLines[batch.size()] = totalLines;
+                    batch.add(student);
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    rejects.reject(totalLines, e, line);
+                    continue;
+                }
+
+                if (batch.size() >= BATCH_SIZE) {
+                    totalSaved += writeBulkBatch(connection, batch, batchLines, rejects);
+                    batch.clear();
+
+                    if (totalLines % 100000 == 0) {
+                        System.out.println("Processed " + totalLines + " lines, saved " + totalSaved + " records...");
+                    }
+                }
             }
+
+            // Save remaining records in the last batch
+            totalSaved += writeBulkBatch(connection, batch, batchLines, rejects);
+        } finally {
+            rejects.close();
         }
 
-        System.out.println("CSV Processing Summary:");
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+
+        System.out.println("Bulk-load Summary:");
         System.out.println("Total lines processed: " + totalLines);
-        System.out.println("Lines with errors: " + errorLines);
+        System.out.println("Lines with errors: " + rejects.getTotal());
         System.out.println("Successfully saved: " + totalSaved);
-        System.out.println("Success rate: " + String.format("%.2f%%", (double)(totalLines - errorLines) / totalLines * 100));
 
-        return totalSaved;
+        Map<String, Object> stats = new HashMap<>(rejects.toMap());
+        stats.put("loadMethod", loadMethod);
+        stats.put("recordsUploaded", totalSaved);
+        stats.put("totalLines", totalLines);
+        stats.put("durationMs", duration);
+        stats.put("rowsPerSecond", Math.round(totalSaved / (duration / 1000.0)));
+        return stats;
+    }
+
+    // Pipelined mode: reader, parser workers and writer workers run concurrently
+    public Map<String, Object> uploadCsvWithPipeline(MultipartFile csvFile, Integer writerThreads) throws Exception {
+        return uploadCsvWithPipeline(csvFile.getInputStream(), writerThreads);
+    }
+
+    public Map<String, Object> uploadCsvWithPipeline(InputStream csv, Integer writerThreads) throws Exception {
+        return csvIngestPipeline.run(csv, writerThreads).toMap();
+    }
+
+    // Merge mode: staging table plus one set-based upsert keyed on the extract's studentId
+    public Map<String, Object> uploadCsvWithMerge(MultipartFile csvFile) throws IOException, SQLException {
+        return uploadCsvWithMerge(csvFile.getInputStream());
+    }
+
+    public Map<String, Object> uploadCsvWithMerge(InputStream csv) throws IOException, SQLException {
+        return studentMergeService.merge(csv);
+    }
+
+    // Excel straight into the database: rows stream from the workbook reader into the bulk writer,
+    // picking up the +10 conversion and the +5 upload adjustment on the way, with no CSV in between
+    public Map<String, Object> uploadExcelToDatabase(MultipartFile excelFile) throws IOException, SQLException {
+        return uploadExcelToDatabase(excelFile.getInputStream());
+    }
+
+    public Map<String, Object> uploadExcelToDatabase(InputStream excel) throws IOException, SQLException {
+        long startTime = System.currentTimeMillis();
+        AtomicInteger totalSaved = new AtomicInteger();
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        long[] batchLines = new long[BATCH_SIZE];
+        String loadMethod;
+        int totalRows;
+        RejectCollector rejects = rejectFileService.open();
+
+        System.out.println("Starting direct Excel to database upload...");
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            loadMethod = studentBulkWriter.loadMethod(connection);
+
+            totalRows = dataProcessingService.forEachStudentRow(excel, (rowNum, row) -> {
+                try {
+                    Student student = StudentCsvMapper.toStudent(row);
+                    batchLines[batch.size()] = rowNum;
+                    batch.add(student);
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    rejects.reject(rowNum, e, String.join(",", row));
+                    return;
+                }
+
+                if (batch.size() >= BATCH_SIZE) {
+                    totalSaved.addAndGet(writeBulkBatch(connection, batch, batchLines, rejects));
+                    batch.clear();
+
+                    if (totalSaved.get() % 100000 == 0) {
+                        System.out.println("Processed " + rowNum + " rows, saved " + totalSaved.get() + " records...");
+                    }
+                }
+            });
+
+            // Save remaining records in the last batch
+            totalSaved.addAndGet(writeBulkBatch(connection, batch, batchLines, rejects));
+        } finally {
+            rejects.close();
+        }
+
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+
+        System.out.println("Excel to database Summary:");
+        System.out.println("Total rows processed: " + totalRows);
+        System.out.println("Rows with errors: " + rejects.getTotal());
+        System.out.println("Successfully saved: " + totalSaved.get());
+
+        Map<String, Object> stats = new HashMap<>(rejects.toMap());
+        stats.put("loadMethod", loadMethod);
+        stats.put("recordsUploaded", totalSaved.get());
+        stats.put("totalRows", totalRows);
+        stats.put("durationMs", duration);
+        stats.put("rowsPerSecond", Math.round(totalSaved.get() / (duration / 1000.0)));
+        return stats;
+    }
+
+    // One transaction per batch so a failure never leaves a partially written batch behind.
+    // Rows the database rejects are isolated by bisection and reported; the rest of the batch commits.
+    private int writeBulkBatch(Connection connection, List<Student> batch, long[] batchLines,
+                               RejectCollector rejects) throws SQLException {
+        if (batch.isEmpty()) return 0;
+        try {
+            int saved = studentBulkWriter.writeIsolatingBadRows(connection, StudentBulkWriter.STUDENT_TABLE, batch,
+                    (index, cause) -> rejects.reject(batchLines[index], cause, batch.get(index)));
+            connection.commit();
+            return saved;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private static void logHeader(String[] header) {
+        System.out.println("CSV Header: " + String.join(",", header));
+        System.out.println("Detected columns: " + header.length);
+        
+        if (header.length == 6) {
+            System.out.println("Expected format: studentId, firstName, lastName, DOB, className, score");
+        } else if (header.length >= 7) {
+            System.out.println("Detected format: studentId, firstName, lastName, age, email, className, score, year");
+            System.out.println("Note: Converting age to approximate birth year, ignoring email and year fields");
+        } else {
+            System.out.println("Warning: Unexpected column count. Expected 6 or 7+ columns.");
+        }
     }
 
     public long getTotalStudentCount() {
@@ -155,18 +365,100 @@ public class DatabaseService {
         return studentRepository.findAll();
     }
     
-    // Optimized batch saving method with proper transaction management
-    @Transactional
-    public int saveBatchOptimized(List<Student> batch) {
+    // One transaction per batch, holding the batch's rows and, with a fingerprint, its checkpoint. If the
+    // database refuses the batch for its data, the bad rows are isolated by bisecting in trial
+    // transactions that always roll back, and the other rows are then committed in one transaction as
+    // before, so one bad row no longer discards the other 4,999 and a batch is never half committed.
+    // The bad rows go to the reject file once the batch has committed.
+    private int saveBatchOptimized(List<Student> batch, long[] batchLines, RejectCollector rejects,
+                                   String fingerprint, int batchNo, long lastLine) {
+        long firstLine = (long) batchNo * BATCH_SIZE + 1;
+        Map<Integer, SQLException> refused = new TreeMap<>();
         try {
-            // Use saveAllAndFlush for immediate persistence
-            List<Student> savedStudents = studentRepository.saveAllAndFlush(batch);
-            return savedStudents.size();
+            try {
+                return commitBatch(batch, fingerprint, batchNo, firstLine, lastLine);
+            } catch (DataIntegrityViolationException e) {
+                // Rolled back: clear the ids handed out so the rows are persisted as new on retry
+                batch.forEach(student -> student.setStudentId(null));
+                isolateRefused(batch, 0, sqlExceptionOf(e), refused);
+                List<Student> accepted = new ArrayList<>(batch.size() - refused.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!refused.containsKey(i)) accepted.add(batch.get(i));
+                }
+                int saved = commitBatch(accepted, fingerprint, batchNo, firstLine, lastLine);
+                refused.forEach((index, cause) -> rejects.reject(batchLines[index], cause, batch.get(index)));
+                return saved;
+            }
         } catch (Exception e) {
             System.err.println("Batch save failed: " + e.getMessage());
             // Don't attempt individual saves in case of batch failure
-            // This prevents connection issues
+            // This prevents connection issues; the lost rows are still reported
+            SQLException cause = sqlExceptionOf(e);
+            for (int i = 0; i < batch.size(); i++) {
+                rejects.reject(batchLines[i], refused.getOrDefault(i, cause), batch.get(i));
+            }
             return 0;
         }
     }
+
+    private int commitBatch(List<Student> rows, String fingerprint, int batchNo, long firstLine, long lastLine) {
+        Integer saved = batchTransaction.execute(status -> {
+            // Use saveAllAndFlush for immediate persistence
+            int count = studentRepository.saveAllAndFlush(rows).size();
+            if (fingerprint != null && !recordCheckpoint(fingerprint, batchNo, firstLine, lastLine, count)) {
+                // Another run committed this batch first; keep it exactly-once
+                status.setRollbackOnly();
+                return 0;
+            }
+            return count;
+        });
+        return saved != null ? saved : 0;
+    }
+
+    // On the JDBC connection of the current JPA transaction, so it commits with the batch
+    private boolean recordCheckpoint(String fingerprint, int batchNo, long firstLine, long lastLine, int rowsSaved) {
+        try {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            return checkpointService.record(connection, fingerprint, batchNo, firstLine, lastLine, rowsSaved);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not record checkpoint for batch " + batchNo + ": " + e.getMessage(), e);
+        }
+    }
+
+    // rows are known to fail with cause; splits them until every refused row is found
+    private void isolateRefused(List<Student> rows, int offset, SQLException cause, Map<Integer, SQLException> refused) {
+        if (rows.size() == 1) {
+            refused.put(offset, cause);
+            return;
+        }
+        int mid = rows.size() / 2;
+        List<Student> left = rows.subList(0, mid);
+        List<Student> right = rows.subList(mid, rows.size());
+        SQLException leftCause = trialSave(left);
+        if (leftCause != null) isolateRefused(left, offset, leftCause, refused);
+        SQLException rightCause = trialSave(right);
+        if (rightCause != null) isolateRefused(right, offset + mid, rightCause, refused);
+    }
+
+    // Saves rows in a transaction that is always rolled back; null if the database accepted them
+    private SQLException trialSave(List<Student> rows) {
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                studentRepository.saveAllAndFlush(rows);
+                status.setRollbackOnly();
+            });
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            return sqlExceptionOf(e);
+        } finally {
+            rows.forEach(student -> student.setStudentId(null));
+        }
+    }
+
+    private static SQLException sqlExceptionOf(Exception e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) return sql;
+        }
+        return new SQLException(e.getMessage(), e);
+    }
 }
@@ -0,0 +1,111 @@
+package com.example.service;
+
+import com.example.entity.IngestCheckpoint;
+import com.example.repository.IngestCheckpointRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class IngestCheckpointService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO ingest_checkpoints (checkpoint_id, fingerprint, batch_no, first_line, last_line, rows_saved, committed_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // SQLSTATE for unique/primary key violations on both PostgreSQL and H2
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Autowired
+    private IngestCheckpointRepository checkpointRepository;
+
+    public static MessageDigest newFingerprintDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Wraps a stream so its content fingerprint can be read once it has been fully consumed
+    public static DigestInputStream fingerprinting(InputStream in) {
+        return new DigestInputStream(in, newFingerprintDigest());
+    }
+
+    public static String fingerprintOf(DigestInputStream in) {
+        return HexFormat.of().formatHex(in.getMessageDigest().digest());
+    }
+
+    public Set<Integer> committedBatches(String fingerprint) {
+        return new HashSet<>(checkpointRepository.findBatchNumbers(fingerprint));
+    }
+
+    // Records the batch inside the caller's open transaction. Returns false if the batch was
+    // already checkpointed, in which case the caller must roll back instead of committing.
+    public boolean record(Connection connection, String fingerprint, int batchNo,
+                          long firstLine, long lastLine, int rowsSaved) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            ps.setString(1, fingerprint + ":" + batchNo);
+            ps.setString(2, fingerprint);
+            ps.setInt(3, batchNo);
+            ps.setLong(4, firstLine);
+            ps.setLong(5, lastLine);
+            ps.setInt(6, rowsSaved);
+            ps.setTimestamp(7, Timestamp.from(Instant.now()));
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    public Map<String, Object> summary(String fingerprint) {
+        List<IngestCheckpoint> checkpoints = checkpointRepository.findByFingerprintOrderByBatchNo(fingerprint);
+
+        // Highest batch such that every batch before it has committed as well
+        int contiguousBatches = 0;
+        long lastCommittedLine = 0;
+        long rowsSaved = 0;
+        for (IngestCheckpoint checkpoint : checkpoints) {
+            rowsSaved += checkpoint.getRowsSaved();
+            if (checkpoint.getBatchNo() == contiguousBatches) {
+                contiguousBatches++;
+                lastCommittedLine = checkpoint.getLastLine();
+            }
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("fingerprint", fingerprint);
+        summary.put("batchesCommitted", checkpoints.size());
+        summary.put("rowsSaved", rowsSaved);
+        summary.put("lastCommittedLine", lastCommittedLine);
+        summary.put("lastContiguousBatch", contiguousBatches - 1);
+        if (!checkpoints.isEmpty()) {
+            summary.put("lastCommittedAt", checkpoints.stream()
+                    .map(IngestCheckpoint::getCommittedAt).max(Instant::compareTo).get().toString());
+        }
+        return summary;
+    }
+
+    public int clear(String fingerprint) {
+        return checkpointRepository.deleteByFingerprint(fingerprint);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// One asynchronous CSV ingest submitted through POST /database/upload-csv?async=true
+public class IngestJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String jobId;
+    private final String fileName;
+    private final Path spoolFile;
+    private final Integer writerThreads;
+    private final String fingerprint;
+    private final String resumedFromJobId;
+    private final IngestProgress progress = new IngestProgress();
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String errorMessage;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    // Failed and cancelled jobs keep their spool file so they can be resumed without a re-upload
+    private volatile boolean spoolRetained;
+
+    public IngestJob(String jobId, String fileName, Path spoolFile, long fileSize, Integer writerThreads,
+                     String fingerprint, String resumedFromJobId) {
+        this.jobId = jobId;
+        this.fileName = fileName;
+        this.spoolFile = spoolFile;
+        this.writerThreads = writerThreads;
+        this.fingerprint = fingerprint;
+        this.resumedFromJobId = resumedFromJobId;
+        progress.setTotalBytes(fileSize);
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    public Integer getWriterThreads() {
+        return writerThreads;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean isSpoolRetained() {
+        return spoolRetained;
+    }
+
+    public void setSpoolRetained(boolean spoolRetained) {
+        this.spoolRetained = spoolRetained;
+    }
+
+    public IngestProgress getProgress() {
+        return progress;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        progress.start();
+        status = Status.RUNNING;
+    }
+
+    public void markFinished(Status finalStatus, String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.finishedAt = Instant.now();
+        this.status = finalStatus;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> job = new HashMap<>(progress.toMap());
+        job.put("jobId", jobId);
+        job.put("fileName", fileName);
+        job.put("status", status.name());
+        job.put("fingerprint", fingerprint);
+        job.put("resumable", spoolRetained);
+        if (resumedFromJobId != null) {
+            job.put("resumedFromJobId", resumedFromJobId);
+        }
+        job.put("submittedAt", submittedAt.toString());
+        if (startedAt != null) {
+            job.put("startedAt", startedAt.toString());
+        }
+        if (finishedAt != null) {
+            job.put("finishedAt", finishedAt.toString());
+        }
+        if (errorMessage != null) {
+            job.put("error", errorMessage);
+        }
+        return job;
+    }
+}
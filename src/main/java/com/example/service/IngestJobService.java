@@ -0,0 +1,182 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class IngestJobService {
+
+    @Autowired
+    private CsvIngestPipeline csvIngestPipeline;
+
+    @Autowired
+    private RejectFileService rejectFileService;
+
+    @Value("${app.ingest.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${app.ingest.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService jobExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIds = new AtomicInteger();
+        jobExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), r -> {
+            Thread t = new Thread(r, "ingest-job-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.getProgress().cancel());
+        jobExecutor.shutdownNow();
+    }
+
+    // The multipart temp file disappears when the request ends, so the upload is spooled
+    // to a job-owned file before the request thread returns. The content fingerprint is
+    // computed during the copy; re-uploading a file resumes from its checkpoints.
+    public IngestJob submit(MultipartFile csvFile, Integer writerThreads) throws IOException {
+        return submit(csvFile.getInputStream(), csvFile.getOriginalFilename(), writerThreads);
+    }
+
+    // Streamed request bodies are spooled straight from the socket, so the spool is the only disk copy
+    public IngestJob submit(InputStream csv, String fileName, Integer writerThreads) throws IOException {
+        pruneFinishedJobs();
+
+        String jobId = UUID.randomUUID().toString();
+        Path spoolFile = Files.createTempFile("ingest-" + jobId + "-", ".csv");
+        String fingerprint;
+        try (DigestInputStream in = IngestCheckpointService.fingerprinting(csv)) {
+            Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            fingerprint = IngestCheckpointService.fingerprintOf(in);
+        } catch (IOException e) {
+            // Client went away mid-upload; nothing can resume from a partial spool
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        IngestJob job = new IngestJob(jobId, fileName, spoolFile, Files.size(spoolFile),
+                writerThreads, fingerprint, null);
+        return start(job);
+    }
+
+    // Starts a new job over the spool file of a failed or cancelled job. Batches committed
+    // before the failure are skipped through their checkpoints.
+    public IngestJob resume(String jobId, Integer writerThreads) throws IOException {
+        IngestJob previous = jobs.get(jobId);
+        if (previous == null || !previous.isFinished() || !previous.isSpoolRetained()) {
+            return null;
+        }
+        previous.setSpoolRetained(false);
+
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), previous.getFileName(), previous.getSpoolFile(),
+                Files.size(previous.getSpoolFile()),
+                writerThreads != null ? writerThreads : previous.getWriterThreads(),
+                previous.getFingerprint(), previous.getJobId());
+        return start(job);
+    }
+
+    private IngestJob start(IngestJob job) {
+        jobs.put(job.getJobId(), job);
+        jobExecutor.submit(() -> runJob(job));
+        return job;
+    }
+
+    public IngestJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Collection<IngestJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    // Returns false when the job is unknown or has already finished
+    public boolean cancel(String jobId) {
+        IngestJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) return false;
+        job.getProgress().cancel();
+        if (job.getStatus() == IngestJob.Status.QUEUED) {
+            // Never started, runJob will see the flag and skip it
+            job.markFinished(IngestJob.Status.CANCELLED, null);
+        }
+        return true;
+    }
+
+    private void runJob(IngestJob job) {
+        if (job.getProgress().isCancelled()) {
+            job.setSpoolRetained(true);
+            return;
+        }
+        job.markRunning();
+        job.getProgress().setRejects(rejectFileService.open(job.getJobId()));
+        System.out.println("Ingest job " + job.getJobId() + " started for " + job.getFileName());
+        try (InputStream in = Files.newInputStream(job.getSpoolFile())) {
+            csvIngestPipeline.run(in, job.getWriterThreads(), job.getProgress(), job.getFingerprint());
+            if (job.getProgress().isCancelled()) {
+                job.setSpoolRetained(true);
+                job.markFinished(IngestJob.Status.CANCELLED, null);
+            } else {
+                job.markFinished(IngestJob.Status.COMPLETED, null);
+            }
+        } catch (Exception e) {
+            System.err.println("Ingest job " + job.getJobId() + " failed: " + e.getMessage());
+            job.setSpoolRetained(true);
+            job.markFinished(IngestJob.Status.FAILED, e.getMessage());
+        }
+        if (!job.isSpoolRetained()) {
+            deleteSpoolFile(job);
+        }
+        System.out.println("Ingest job " + job.getJobId() + " finished with status " + job.getStatus());
+    }
+
+    private static void deleteSpoolFile(IngestJob job) {
+        try {
+            Files.deleteIfExists(job.getSpoolFile());
+        } catch (IOException e) {
+            System.err.println("Could not delete spool file " + job.getSpoolFile() + ": " + e.getMessage());
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(jobRetentionMinutes));
+        List<String> expired = new ArrayList<>();
+        jobs.forEach((id, job) -> {
+            if (job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff)) {
+                expired.add(id);
+            }
+        });
+        for (String id : expired) {
+            IngestJob job = jobs.remove(id);
+            if (job.isSpoolRetained()) {
+                deleteSpoolFile(job);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Thread-safe counters shared by the stages of one ingest run
+public class IngestProgress {
+
+    public final StageMetrics reader = new StageMetrics();
+    public final StageMetrics parser = new StageMetrics();
+    public final StageMetrics writer = new StageMetrics();
+
+    public final AtomicLong batchesCommitted = new AtomicLong();
+    public final AtomicLong bytesRead = new AtomicLong();
+    public final AtomicLong batchesSkipped = new AtomicLong();
+    public final AtomicLong linesSkipped = new AtomicLong();
+
+    // Set when the run actually begins, not when it is queued
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int writerThreads;
+    private volatile int parserThreads;
+    private volatile String loadMethod;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+    private volatile long totalBytes = -1;
+    private volatile RejectCollector rejects;
+
+    public synchronized void start() {
+        if (startedAt == 0) {
+            startedAt = System.currentTimeMillis();
+        }
+    }
+
+    public void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // True once the run should wind down, either because a stage failed or it was cancelled
+    public boolean isStopped() {
+        return failure != null || cancelled;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public void setThreads(int parserThreads, int writerThreads) {
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+    }
+
+    public void setLoadMethod(String loadMethod) {
+        this.loadMethod = loadMethod;
+    }
+
+    public RejectCollector getRejects() {
+        return rejects;
+    }
+
+    public void setRejects(RejectCollector rejects) {
+        this.rejects = rejects;
+    }
+
+    public long getRowsSaved() {
+        return writer.rows.get();
+    }
+
+    public long getElapsedMs() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return Math.max(end - startedAt, 1);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        long elapsed = getElapsedMs();
+        stats.put("loadMethod", loadMethod);
+        stats.put("parserThreads", parserThreads);
+        stats.put("writerThreads", writerThreads);
+        stats.put("totalLines", reader.rows.get());
+        if (rejects != null) {
+            stats.putAll(rejects.toMap());
+        } else {
+            stats.put("errorLines", 0L);
+        }
+        stats.put("recordsUploaded", writer.rows.get());
+        stats.put("batchesCommitted", batchesCommitted.get());
+        stats.put("batchesSkipped", batchesSkipped.get());
+        stats.put("linesSkipped", linesSkipped.get());
+        stats.put("durationMs", elapsed);
+        stats.put("rowsPerSecond", elapsed > 0 ? Math.round(writer.rows.get() / (elapsed / 1000.0)) : 0L);
+        stats.put("rowsParsed", parser.rows.get());
+        stats.put("bytesRead", bytesRead.get());
+        if (totalBytes > 0) {
+            long read = bytesRead.get();
+            stats.put("totalBytes", totalBytes);
+            stats.put("percentComplete", Math.round(read * 1000.0 / totalBytes) / 10.0);
+            if (finishedAt == 0 && read > 0 && elapsed > 0) {
+                // Extrapolate from the share of the input consumed so far
+                stats.put("etaSeconds", Math.round(elapsed / 1000.0 * (totalBytes - read) / read));
+            }
+        }
+
+        Map<String, Object> stages = new HashMap<>();
+        stages.put("reader", reader.toMap());
+        stages.put("parser", parser.toMap());
+        stages.put("writer", writer.toMap());
+        stats.put("stages", stages);
+        return stats;
+    }
+
+    // Rows handled by a stage plus the time its workers spent busy (summed across threads)
+    // and the wall-clock window between the first and last unit of work
+    public static class StageMetrics {
+        public final AtomicLong rows = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEndNanos = new AtomicLong();
+
+        public void record(long rowCount, long startNanos, long endNanos) {
+            rows.addAndGet(rowCount);
+            busyNanos.addAndGet(endNanos - startNanos);
+            firstStartNanos.accumulateAndGet(startNanos, Math::min);
+            lastEndNanos.accumulateAndGet(endNanos, Math::max);
+        }
+
+        public Map<String, Object> toMap() {
+            long wallNanos = lastEndNanos.get() - firstStartNanos.get();
+            long wallMs = Math.max(wallNanos / 1_000_000, 1);
+            Map<String, Object> stage = new HashMap<>();
+            stage.put("rows", rows.get());
+            stage.put("busyMs", busyNanos.get() / 1_000_000);
+            stage.put("wallMs", wallMs);
+            stage.put("rowsPerSecond", Math.round(rows.get() / (wallMs / 1000.0)));
+            return stage;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+// Transparent gzip / zstd support for uploads. The format is detected from the magic bytes, so
+// .csv.gz, .csv.zst and plain files all go through the same call. Compressed input is decoded on
+// a background thread into a small queue of chunks, overlapping decompression with parsing.
+public final class InputDecompressor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Decoded chunks buffered ahead of the reader (4 MB)
+    private static final int QUEUE_CHUNKS = 64;
+    // How long close() waits for the decoder to finish a read in progress before closing its source
+    private static final long CLOSE_WAIT_MS = 1000;
+
+    private static final AtomicInteger threadIds = new AtomicInteger();
+
+    private InputDecompressor() {
+    }
+
+    public static InputStream wrap(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(4);
+        byte[] magic = buffered.readNBytes(4);
+        buffered.reset();
+
+        if (magic.length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return new BackgroundDecodingInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), "gzip");
+        }
+        if (magic.length == 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5
+                && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd) {
+            return new BackgroundDecodingInputStream(new ZstdInputStream(buffered), "zstd");
+        }
+        return buffered;
+    }
+
+    // students.csv.gz -> students.csv, used for upload validation and output naming
+    public static String stripCompressionExtension(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (String extension : new String[]{".gz", ".zst", ".zstd"}) {
+            if (lower.endsWith(extension)) {
+                return fileName.substring(0, fileName.length() - extension.length());
+            }
+        }
+        return fileName;
+    }
+
+    private record Chunk(byte[] data, int length) {}
+
+    private static final class BackgroundDecodingInputStream extends InputStream {
+        private static final Chunk END = new Chunk(new byte[0], 0);
+
+        private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        // Consumed buffers go back to the decoder so steady state allocates nothing
+        private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(QUEUE_CHUNKS + 2);
+        private final InputStream decoded;
+        private final Thread decoder;
+        private volatile Throwable failure;
+        private volatile boolean closed;
+
+        private Chunk current = END;
+        private int pos;
+        private boolean eof;
+
+        BackgroundDecodingInputStream(InputStream decoded, String format) {
+            this.decoded = decoded;
+            decoder = new Thread(() -> decodeLoop(decoded), "decompress-" + format + "-" + threadIds.incrementAndGet());
+            decoder.setDaemon(true);
+            decoder.start();
+        }
+
+        private void decodeLoop(InputStream decoded) {
+            try (decoded) {
+                while (!closed) {
+                    byte[] buffer = freeBuffers.poll();
+                    if (buffer == null) buffer = new byte[BUFFER_SIZE];
+                    int n = decoded.readNBytes(buffer, 0, BUFFER_SIZE);
+                    if (n == 0) break;
+                    chunks.put(new Chunk(buffer, n));
+                }
+            } catch (InterruptedException e) {
+                // Reader closed the stream
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                if (!closed) {
+                    try {
+                        chunks.put(END);
+                    } catch (InterruptedException ignored) {
+                        // Reader closed the stream
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == current.length() && !nextChunk()) return -1;
+            return current.data()[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pos == current.length() && !nextChunk()) return -1;
+            int n = Math.min(len, current.length() - pos);
+            System.arraycopy(current.data(), pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (eof) return false;
+            if (current != END) {
+                freeBuffers.offer(current.data());
+            }
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed input");
+            }
+            pos = 0;
+            if (current == END) {
+                eof = true;
+                if (failure != null) {
+                    throw failure instanceof IOException e ? e : new IOException("Decompression failed", failure);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        // Stops the decoder, then closes the source it reads. A decoder blocked reading the source does
+        // not see the interrupt, so closing the source is also what releases it
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            decoder.interrupt();
+            chunks.clear();
+            try {
+                decoder.join(CLOSE_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                decoded.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.service;
+
+import com.example.entity.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Rejected input lines of one ingest run. Lines are buffered in memory and appended to the
+// reject file in large chunks, so a dirty file costs no console I/O; callers only see counts.
+// Safe to share between the parser threads of a pipelined run.
+public class RejectCollector implements Closeable {
+
+    public static final String INSUFFICIENT_COLUMNS = "insufficient_columns";
+    public static final String INVALID_NUMBER = "invalid_number";
+    public static final String INVALID_DATE = "invalid_date";
+    public static final String VALUE_TOO_LONG = "value_too_long";
+    public static final String CONSTRAINT_VIOLATION = "constraint_violation";
+    public static final String INVALID_VALUE = "invalid_value";
+    public static final String DATABASE_ERROR = "database_error";
+
+    private static final String HEADER = "line,reason,detail,raw\n";
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final String rejectFileId;
+    private final Path file;
+    private final Map<String, Long> countsByReason = new HashMap<>();
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private long total;
+    private Writer writer; // opened on the first flush, clean inputs never create a file
+    private boolean writeFailed;
+
+    public RejectCollector(String rejectFileId, Path file) {
+        this.rejectFileId = rejectFileId;
+        this.file = file;
+    }
+
+    public static String reasonOf(Exception e) {
+        return e instanceof DateTimeParseException ? INVALID_DATE : INVALID_NUMBER;
+    }
+
+    // Rows the database refused; the raw text is gone by then, so the mapped values are recorded
+    public void reject(long lineNumber, SQLException e, Student student) {
+        reject(lineNumber, reasonOf(e), e.getMessage(), describe(student));
+    }
+
+    public static String reasonOf(SQLException e) {
+        String state = e.getSQLState();
+        if ("22001".equals(state)) return VALUE_TOO_LONG;
+        if (state != null && state.startsWith("23")) return CONSTRAINT_VIOLATION;
+        if (state != null && state.startsWith("22")) return INVALID_VALUE;
+        return DATABASE_ERROR;
+    }
+
+    public static String describe(Student student) {
+        return student.getFirstName() + "," + student.getLastName() + "," + student.getDob() + ","
+                + student.getClassName() + "," + student.getScore();
+    }
+
+    public void reject(long lineNumber, Exception e, StudentCsvTokenizer line) {
+        reject(lineNumber, reasonOf(e), e.getMessage(), line.line());
+    }
+
+    public void reject(long lineNumber, String reason, String detail, StudentCsvTokenizer line) {
+        reject(lineNumber, reason, detail, line.line());
+    }
+
+    public void reject(long lineNumber, Exception e, String raw) {
+        reject(lineNumber, reasonOf(e), e.getMessage(), raw);
+    }
+
+    public synchronized void reject(long lineNumber, String reason, String detail, String raw) {
+        total++;
+        countsByReason.merge(reason, 1L, Long::sum);
+        if (writeFailed) return;
+
+        buffer.append(lineNumber).append(',').append(reason).append(',');
+        appendQuoted(detail);
+        buffer.append(',');
+        appendQuoted(raw);
+        buffer.append('\n');
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public String getRejectFileId() {
+        return rejectFileId;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Could not close reject file " + file + ": " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> rejects = new HashMap<>();
+        rejects.put("errorLines", total);
+        rejects.put("errorsByReason", new HashMap<>(countsByReason));
+        if (total > 0 && !writeFailed) {
+            rejects.put("rejectFileId", rejectFileId);
+        }
+        return rejects;
+    }
+
+    private void appendQuoted(String value) {
+        buffer.append('"');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') buffer.append('"');
+                buffer.append(c);
+            }
+        }
+        buffer.append('"');
+    }
+
+    // A reject file that cannot be written must not fail the ingest itself; counting continues
+    private void flush() {
+        if (buffer.isEmpty() || writeFailed) return;
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+            }
+            writer.append(buffer);
+        } catch (IOException e) {
+            writeFailed = true;
+            System.err.println("Could not write reject file " + file + ": " + e.getMessage());
+        }
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Owns the per-run reject files under <storage>/rejects, downloadable via /database/rejects/{id}
+@Service
+public class RejectFileService {
+
+    private static final Pattern REJECT_FILE_ID = Pattern.compile("[0-9a-f-]{36}");
+
+    @Value("${app.file.storage.windows}")
+    private String windowsStoragePath;
+
+    @Value("${app.file.storage.linux}")
+    private String linuxStoragePath;
+
+    @Value("${app.file.storage.rejects:rejects}")
+    private String rejectsFolder;
+
+    @Value("${app.ingest.reject-retention-minutes:1440}")
+    private long rejectRetentionMinutes;
+
+    public RejectCollector open() {
+        return open(UUID.randomUUID().toString());
+    }
+
+    // Async jobs reuse their job id so the reject file is easy to find
+    public RejectCollector open(String rejectFileId) {
+        pruneExpiredFiles();
+        return new RejectCollector(rejectFileId, rejectsDir().resolve(rejectFileId + ".csv"));
+    }
+
+    // Null for ids that are malformed or whose run rejected nothing
+    public Path find(String rejectFileId) {
+        if (!REJECT_FILE_ID.matcher(rejectFileId).matches()) return null;
+        Path file = rejectsDir().resolve(rejectFileId + ".csv");
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private Path rejectsDir() {
+        String os = System.getProperty("os.name").toLowerCase();
+        return Paths.get(os.contains("win") ? windowsStoragePath : linuxStoragePath, rejectsFolder);
+    }
+
+    private void pruneExpiredFiles() {
+        Path dir = rejectsDir();
+        if (!Files.isDirectory(dir)) return;
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(rejectRetentionMinutes));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.csv")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not prune reject files in " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -55,20 +56,7 @@ public class ReportingService {
         Path filePath = reportsDir.resolve(fileName);
         
         // Create a simple CSV file for now
-        try (FileWriter writer = new FileWriter(filePath.toFile())) {
-            writer.write("Student ID,First Name,Last Name,Date of Birth,Class,Score\n");
-            
-            Page<StudentDto> students = getStudents(request);
-            for (StudentDto student : students.getContent()) {
-                writer.write(String.format("%d,%s,%s,%s,%s,%d\n",
-                    student.getStudentId(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getDob(),
-                    student.getClassName(),
-                    student.getScore()));
-            }
-        }
+        writeStudentsCsv(filePath, getStudents(request));
         
         return filePath.toString();
     }
@@ -82,18 +70,26 @@ public class ReportingService {
         
         Path filePath = reportsDir.resolve(fileName);
         
-        try (FileWriter writer = new FileWriter(filePath.toFile())) {
-            writer.write("Student ID,First Name,Last Name,Date of Birth,Class,Score\n");
-            
-            Page<StudentDto> students = getStudents(request);
-            for (StudentDto student : students.getContent()) {
-                writer.write(String.format("%d,%s,%s,%s,%s,%d\n",
-                    student.getStudentId(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getDob(),
-                    student.getClassName(),
-                    student.getScore()));
+        writeStudentsCsv(filePath, getStudents(request));
+        
+        return filePath.toString();
+    }
+
+    // Typed, dictionary-encoded columns for analytics tools; same rows as the CSV export
+    public String exportToParquet(ReportRequest request) throws IOException {
+        String fileName = "report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".parquet";
+        Path reportsDir = Paths.get("reports");
+        if (!Files.exists(reportsDir)) {
+            Files.createDirectories(reportsDir);
+        }
+        
+        Path filePath = reportsDir.resolve(fileName);
+        
+        try (StudentParquetWriter writer = StudentParquetWriter.open(filePath)) {
+            for (StudentDto student : getStudents(request).getContent()) {
+                writer.write(student.getStudentId(), student.getFirstName(), student.getLastName(),
+                        student.getDob() != null ? LocalDate.parse(student.getDob()) : null,
+                        student.getClassName(), student.getScore());
             }
         }
         
@@ -130,6 +126,21 @@ public class ReportingService {
         return filePath.toString();
     }
 
+    private static void writeStudentsCsv(Path filePath, Page<StudentDto> students) throws IOException {
+        try (CsvByteWriter writer = CsvByteWriter.open(filePath)) {
+            writer.writeRow("Student ID", "First Name", "Last Name", "Date of Birth", "Class", "Score");
+            for (StudentDto student : students.getContent()) {
+                writer.field(student.getStudentId())
+                        .field(student.getFirstName())
+                        .field(student.getLastName())
+                        .field(student.getDob())
+                        .field(student.getClassName())
+                        .field(student.getScore())
+                        .endRow();
+            }
+        }
+    }
+
     private StudentDto convertToDto(Student student) {
         StudentDto dto = new StudentDto();
         dto.setStudentId(student.getStudentId());
@@ -0,0 +1,243 @@
+package com.example.service;
+
+import com.example.entity.Student;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+
+@Service
+public class StudentBulkWriter {
+
+    public static final String METHOD_COPY = "copy";
+    public static final String METHOD_JDBC_BATCH = "jdbc-batch";
+
+    public static final String STUDENT_TABLE = "students";
+    private static final String INSERT_COLUMNS = "student_id, first_name, last_name, dob, class, score";
+    // Merge staging tables carry the natural key instead of an id: ids are only drawn for the rows the
+    // merge inserts, and the staging table numbers its rows itself
+    private static final String STAGED_COLUMNS = "first_name, last_name, dob, class, score, source_id";
+
+    // Rows per multi-row INSERT statement on the JDBC fallback path, also the slice size
+    // a failed batch is retried in before bisection
+    private static final int ROWS_PER_STATEMENT = 100;
+
+    // Flush the COPY buffer to the server once it grows past this many chars
+    private static final int COPY_FLUSH_THRESHOLD = 64 * 1024;
+
+    @Autowired
+    private StudentIdAllocator studentIdAllocator;
+
+    public String loadMethod(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return "PostgreSQL".equalsIgnoreCase(product) ? METHOD_COPY : METHOD_JDBC_BATCH;
+    }
+
+    // Writes the batch on the caller's connection; the caller owns commit/rollback
+    public int write(Connection connection, List<Student> batch) throws SQLException {
+        return write(connection, STUDENT_TABLE, batch, false);
+    }
+
+    @FunctionalInterface
+    public interface BadRowHandler {
+        // index is the row's position in the batch passed to writeIsolatingBadRows
+        void badRow(int index, SQLException cause);
+    }
+
+    // Writes into students, or into a merge staging table (students layout with sourceId instead of studentId).
+    // Unlike write, a batch rejected by the database for its data is split in halves
+    // under savepoints until the offending rows are isolated. They are reported to the handler and
+    // every other row stays written. A clean batch costs exactly one write, as before.
+    // Must be called with no other uncommitted work on the connection: the first failure rolls back.
+    public int writeIsolatingBadRows(Connection connection, String table, List<Student> batch,
+                                     BadRowHandler badRows) throws SQLException {
+        boolean withSourceId = !STUDENT_TABLE.equals(table);
+        try {
+            return write(connection, table, batch, withSourceId);
+        } catch (SQLException e) {
+            connection.rollback();
+            if (!isDataError(e)) throw e;
+        }
+        // Retry in statement-sized slices first so a few scattered bad rows only cost a bisection
+        // of their own slice instead of rewriting halves of the whole batch at every level
+        int written = 0;
+        for (int from = 0; from < batch.size(); from += ROWS_PER_STATEMENT) {
+            int to = Math.min(from + ROWS_PER_STATEMENT, batch.size());
+            written += writeUnderSavepoint(connection, table, batch.subList(from, to), from, withSourceId, badRows);
+        }
+        return written;
+    }
+
+    private int bisect(Connection connection, String table, List<Student> rows, int offset, boolean withSourceId,
+                       BadRowHandler badRows, SQLException failure) throws SQLException {
+        if (rows.size() == 1) {
+            badRows.badRow(offset, failure);
+            return 0;
+        }
+        int mid = rows.size() / 2;
+        return writeUnderSavepoint(connection, table, rows.subList(0, mid), offset, withSourceId, badRows)
+                + writeUnderSavepoint(connection, table, rows.subList(mid, rows.size()), offset + mid, withSourceId, badRows);
+    }
+
+    private int writeUnderSavepoint(Connection connection, String table, List<Student> rows, int offset,
+                                    boolean withSourceId, BadRowHandler badRows) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            int written = write(connection, table, rows, withSourceId);
+            connection.releaseSavepoint(savepoint);
+            return written;
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            if (!isDataError(e)) throw e;
+            return bisect(connection, table, rows, offset, withSourceId, badRows, e);
+        }
+    }
+
+    // SQLSTATE class 22 (data exception, e.g. value too long) or 23 (integrity constraint violation).
+    // Anything else, such as a lost connection, would fail every half as well and is rethrown.
+    static boolean isDataError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private int write(Connection connection, String table, List<Student> batch, boolean withSourceId) throws SQLException {
+        if (batch.isEmpty()) return 0;
+        if (!withSourceId) {
+            studentIdAllocator.assignIds(connection, batch);
+        }
+        if (METHOD_COPY.equals(loadMethod(connection))) {
+            return copyIn(connection, table, batch, withSourceId);
+        }
+        return insertMultiRow(connection, table, batch, withSourceId);
+    }
+
+    // PostgreSQL: stream the batch as CSV through COPY FROM STDIN
+    private int copyIn(Connection connection, String table, List<Student> batch, boolean withSourceId) throws SQLException {
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        String columns = withSourceId ? STAGED_COLUMNS : INSERT_COLUMNS;
+        CopyIn copyIn = copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)");
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_FLUSH_THRESHOLD + 1024);
+            for (Student student : batch) {
+                if (!withSourceId) {
+                    buffer.append(student.getStudentId().longValue()).append(',');
+                }
+                appendCsvField(buffer, student.getFirstName()).append(',');
+                appendCsvField(buffer, student.getLastName()).append(',');
+                buffer.append(student.getDob()).append(',');
+                appendCsvField(buffer, student.getClassName()).append(',');
+                buffer.append(student.getScore().intValue());
+                if (withSourceId) {
+                    buffer.append(',').append(student.getSourceId().longValue());
+                }
+                buffer.append('\n');
+
+                if (buffer.length() >= COPY_FLUSH_THRESHOLD) {
+                    flushCopyBuffer(copyIn, buffer);
+                }
+            }
+            flushCopyBuffer(copyIn, buffer);
+            return (int) copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void flushCopyBuffer(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() == 0) return;
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // COPY csv format treats an unquoted empty field as NULL, so empty strings are always quoted
+    private static StringBuilder appendCsvField(StringBuilder buffer, String value) {
+        if (value.isEmpty()) {
+            return buffer.append("\"\"");
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            return buffer.append(value);
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') buffer.append('"');
+            buffer.append(c);
+        }
+        return buffer.append('"');
+    }
+
+    // H2 and other databases: multi-row INSERT ... VALUES (...),(...) statements sent as a JDBC batch
+    private int insertMultiRow(Connection connection, String table, List<Student> batch, boolean withSourceId) throws SQLException {
+        int fullStatements = batch.size() / ROWS_PER_STATEMENT;
+        int remainder = batch.size() % ROWS_PER_STATEMENT;
+        int saved = 0;
+
+        if (fullStatements > 0) {
+            try (PreparedStatement ps = connection.prepareStatement(multiRowInsertSql(table, ROWS_PER_STATEMENT, withSourceId))) {
+                for (int s = 0; s < fullStatements; s++) {
+                    bindRows(ps, batch, s * ROWS_PER_STATEMENT, ROWS_PER_STATEMENT, withSourceId);
+                    ps.addBatch();
+                }
+                for (int count : ps.executeBatch()) {
+                    saved += count >= 0 ? count : ROWS_PER_STATEMENT;
+                }
+            }
+        }
+        if (remainder > 0) {
+            try (PreparedStatement ps = connection.prepareStatement(multiRowInsertSql(table, remainder, withSourceId))) {
+                bindRows(ps, batch, fullStatements * ROWS_PER_STATEMENT, remainder, withSourceId);
+                saved += ps.executeUpdate();
+            }
+        }
+        return saved;
+    }
+
+    private static String multiRowInsertSql(String table, int rows, boolean withSourceId) {
+        String columns = withSourceId ? STAGED_COLUMNS : INSERT_COLUMNS;
+        String placeholders = "(?,?,?,?,?,?)";
+        StringBuilder sql = new StringBuilder("INSERT INTO " + table + " (" + columns + ") VALUES ");
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sql.append(',');
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    private static void bindRows(PreparedStatement ps, List<Student> batch, int from, int count,
+                                 boolean withSourceId) throws SQLException {
+        int index = 1;
+        for (int r = from; r < from + count; r++) {
+            Student student = batch.get(r);
+            if (!withSourceId) {
+                ps.setLong(index++, student.getStudentId());
+            }
+            ps.setString(index++, student.getFirstName());
+            ps.setString(index++, student.getLastName());
+            ps.setObject(index++, student.getDob());
+            ps.setString(index++, student.getClassName());
+            ps.setInt(index++, student.getScore());
+            if (withSourceId) {
+                ps.setLong(index++, student.getSourceId());
+            }
+        }
+    }
+}
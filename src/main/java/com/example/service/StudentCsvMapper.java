@@ -0,0 +1,69 @@
+package com.example.service;
+
+import com.example.entity.Student;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+// Maps a parsed CSV line onto a Student using the upload rules shared by every ingest path
+public final class StudentCsvMapper {
+
+    // CSV score + 5 = Database score
+    public static final int SCORE_INCREMENT = 5;
+
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private StudentCsvMapper() {}
+
+    // Returns null when the line does not have enough columns; parse errors are thrown as
+    // NumberFormatException / DateTimeParseException so callers can count them
+    public static Student toStudent(String[] line) {
+        if (line.length >= 7) {
+            // 7+ columns: id, firstName, lastName, age, email, className, score, year
+            Student student = new Student();
+            student.setFirstName(line[1]);
+            student.setLastName(line[2]);
+
+            // Convert age to approximate birth year (January 1st as default)
+            int age = Integer.parseInt(line[3]);
+            student.setDob(LocalDate.of(LocalDate.now().getYear() - age, 1, 1));
+
+            student.setClassName(line[5]);
+            student.setScore(Integer.parseInt(line[6]) + SCORE_INCREMENT);
+            return student;
+        } else if (line.length >= 6) {
+            // 6 columns: id, firstName, lastName, dob, className, score
+            Student student = new Student();
+            student.setFirstName(line[1]);
+            student.setLastName(line[2]);
+            student.setDob(LocalDate.parse(line[3], ISO_DATE));
+            student.setClassName(line[4]);
+            student.setScore(Integer.parseInt(line[5]) + SCORE_INCREMENT);
+            return student;
+        }
+        return null;
+    }
+
+    // Same rules as toStudent(String[]), reading typed fields straight from the tokenizer buffer
+    public static Student toStudent(StudentCsvTokenizer line) {
+        int columns = line.fieldCount();
+        if (columns >= 7) {
+            Student student = new Student();
+            student.setFirstName(line.string(1));
+            student.setLastName(line.string(2));
+            student.setDob(LocalDate.of(LocalDate.now().getYear() - line.parseInt(3), 1, 1));
+            student.setClassName(line.string(5));
+            student.setScore(line.parseInt(6) + SCORE_INCREMENT);
+            return student;
+        } else if (columns >= 6) {
+            Student student = new Student();
+            student.setFirstName(line.string(1));
+            student.setLastName(line.string(2));
+            student.setDob(line.parseIsoDate(3));
+            student.setClassName(line.string(4));
+            student.setScore(line.parseInt(5) + SCORE_INCREMENT);
+            return student;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+// Allocation-light tokenizer for the student CSV layout.
+// Fields are kept as offsets into one reusable char buffer; ints and ISO dates are parsed straight
+// from the buffer and repeated text values (names, classes) are served from a small string cache,
+// so a typical line allocates nothing beyond the Student it becomes.
+public class StudentCsvTokenizer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader; // null when tokenizing an in-memory block
+    private final StringCache cache;
+    private char[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    private int recordStart;
+    private int recordEnd;
+    private long recordNumber;
+
+    private int fieldCount;
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private boolean[] fieldEscaped = new boolean[8]; // field contains doubled quotes
+
+    public StudentCsvTokenizer(Reader reader) {
+        this.reader = reader;
+        this.cache = new StringCache();
+        this.buf = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    // Tokenizes records already cut out by readBlock, sharing the caller's string cache
+    public StudentCsvTokenizer(char[] block, int length, StringCache cache) {
+        this.reader = null;
+        this.cache = cache;
+        this.buf = block;
+        this.limit = length;
+        this.eof = true;
+    }
+
+    // Records between reader and parsers in the ingest pipeline: raw chars, one record per line
+    public record Block(char[] chars, int length, int records) {}
+
+    // Advances to the next record and splits it into fields; false at end of input
+    public boolean next() throws IOException {
+        if (!findRecord()) return false;
+        tokenize();
+        return true;
+    }
+
+    // Cuts the next maxRecords records out of the input without tokenizing them.
+    // Returns null at end of input.
+    public Block readBlock(int maxRecords) throws IOException {
+        char[] block = new char[Math.max(1024, maxRecords * 64)];
+        int length = 0;
+        int records = 0;
+        while (records < maxRecords && findRecord()) {
+            int recordLength = recordEnd - recordStart;
+            if (length + recordLength + 1 > block.length) {
+                block = Arrays.copyOf(block, Math.max(block.length * 2, length + recordLength + 1));
+            }
+            System.arraycopy(buf, recordStart, block, length, recordLength);
+            length += recordLength;
+            block[length++] = '\n';
+            records++;
+        }
+        return records == 0 ? null : new Block(block, length, records);
+    }
+
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public String string(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (!fieldEscaped[field]) {
+            return cache.get(buf, start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            sb.append(c);
+            if (c == '"' && i + 1 < end && buf[i + 1] == '"') i++;
+        }
+        return sb.toString();
+    }
+
+    public String[] fields() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = string(i);
+        }
+        return fields;
+    }
+
+    // Raw text of the current record, for error reporting only
+    public String line() {
+        return new String(buf, recordStart, recordEnd - recordStart);
+    }
+
+    // Same contract as Integer.parseInt, without creating the intermediate String
+    public int parseInt(int field) {
+        long value = parseLong(field);
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) throw numberFormat(field);
+        return (int) value;
+    }
+
+    // Same contract as Long.parseLong, without creating the intermediate String
+    public long parseLong(int field) {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        if (i >= end) throw numberFormat(field);
+
+        boolean negative = false;
+        char first = buf[i];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) throw numberFormat(field);
+        }
+        // Accumulate negatively so Long.MIN_VALUE parses without overflow
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) throw numberFormat(field);
+            if (value < (limit + digit) / 10) throw numberFormat(field);
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    // yyyy-MM-dd, resolved like DateTimeFormatter.ofPattern("yyyy-MM-dd") (SMART: a day past
+    // the end of the month is clamped to the last day)
+    public LocalDate parseIsoDate(int field) {
+        int s = fieldStart[field];
+        if (fieldEnd[field] - s != 10 || buf[s + 4] != '-' || buf[s + 7] != '-') {
+            throw dateParse(field);
+        }
+        int year = digits(field, s, 4);
+        int month = digits(field, s + 5, 2);
+        int day = digits(field, s + 8, 2);
+        try {
+            LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+            if (day < 1 || day > 31) throw dateParse(field);
+            return firstOfMonth.withDayOfMonth(Math.min(day, firstOfMonth.lengthOfMonth()));
+        } catch (DateTimeException e) {
+            throw dateParse(field);
+        }
+    }
+
+    private int digits(int field, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) throw dateParse(field);
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private NumberFormatException numberFormat(int field) {
+        return new NumberFormatException("For input string: \"" + string(field) + "\"");
+    }
+
+    private DateTimeParseException dateParse(int field) {
+        String text = string(field);
+        return new DateTimeParseException("Text '" + text + "' could not be parsed", text, 0);
+    }
+
+    // Finds the bounds of the next record (a newline outside quotes ends it), refilling the
+    // buffer as needed. The record is guaranteed to be contiguous in buf afterwards.
+    // Quotes are read the way tokenize reads them: a quote opens a quoted field only at the start
+    // of a field (or straight after a closing quote, i.e. a doubled quote), so a stray quote inside
+    // an unquoted field, or text after a closing quote, cannot swallow the following lines.
+    private boolean findRecord() throws IOException {
+        while (true) {
+            boolean inQuotes = false;
+            boolean canOpen = true;
+            for (int i = pos; i < limit; i++) {
+                char c = buf[i];
+                if (c == '"') {
+                    if (inQuotes) {
+                        inQuotes = false;
+                        canOpen = true;
+                    } else if (canOpen) {
+                        inQuotes = true;
+                    }
+                } else if (!inQuotes) {
+                    if (c == '\n') {
+                        setRecord(pos, i);
+                        pos = i + 1;
+                        return true;
+                    }
+                    canOpen = c == ',';
+                }
+            }
+            if (eof) {
+                if (pos >= limit) return false;
+                // Last record without a trailing newline
+                setRecord(pos, limit);
+                pos = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    private void setRecord(int start, int end) {
+        if (end > start && buf[end - 1] == '\r') end--;
+        recordStart = start;
+        recordEnd = end;
+        recordNumber++;
+    }
+
+    // Moves the unread tail to the front of the buffer (growing it for very long records) and reads more
+    private void fill() throws IOException {
+        int remaining = limit - pos;
+        if (remaining == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        } else if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        }
+        pos = 0;
+        limit = remaining;
+        int n = reader.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    private void tokenize() {
+        fieldCount = 0;
+        int i = recordStart;
+        int end = recordEnd;
+        while (true) {
+            if (i < end && buf[i] == '"') {
+                int start = ++i;
+                boolean escaped = false;
+                while (i < end) {
+                    if (buf[i] == '"') {
+                        if (i + 1 < end && buf[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                addField(start, i, escaped);
+                // Skip the closing quote and anything up to the next separator
+                while (i < end && buf[i] != ',') i++;
+            } else {
+                int start = i;
+                while (i < end && buf[i] != ',') i++;
+                addField(start, i, false);
+            }
+            if (i >= end) return;
+            i++; // separator
+            if (i == end) {
+                addField(i, i, false); // trailing empty field
+                return;
+            }
+        }
+    }
+
+    private void addField(int start, int end, boolean escaped) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    // Direct-mapped cache of recently seen strings. Low-cardinality columns hit almost every time;
+    // high-cardinality values simply overwrite their slot, so memory stays bounded.
+    public static class StringCache {
+        private static final int SLOTS = 4096;
+        private final String[] slots = new String[SLOTS];
+
+        public String get(char[] chars, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+            String cached = slots[slot];
+            if (cached != null && matches(cached, chars, start, end)) {
+                return cached;
+            }
+            String value = new String(chars, start, end - start);
+            slots[slot] = value;
+            return value;
+        }
+
+        private static boolean matches(String s, char[] chars, int start, int end) {
+            if (s.length() != end - start) return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) != chars[start + i]) return false;
+            }
+            return true;
+        }
+    }
+}
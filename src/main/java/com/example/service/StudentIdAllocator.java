@@ -0,0 +1,52 @@
+package com.example.service;
+
+import com.example.entity.Student;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// Hands out student ids for the JDBC/COPY write paths from the same sequence Hibernate uses.
+// Follows the pooled-lo contract: each nextval value v reserves the block [v, v + ID_ALLOCATION_SIZE).
+@Service
+public class StudentIdAllocator {
+
+    private long nextId;
+    private long blockLimit;
+
+    public synchronized void assignIds(Connection connection, List<Student> batch) throws SQLException {
+        for (Student student : batch) {
+            if (student.getStudentId() != null) continue;
+            if (nextId >= blockLimit) {
+                nextId = fetchBlockStart(connection);
+                blockLimit = nextId + Student.ID_ALLOCATION_SIZE;
+            }
+            student.setStudentId(nextId++);
+        }
+    }
+
+    // Reserves enough whole blocks for count ids, for inserts that number their rows in SQL: row r
+    // (0-based) takes blocks[r / ID_ALLOCATION_SIZE] + r % ID_ALLOCATION_SIZE
+    public long[] reserveBlocks(Connection connection, long count) throws SQLException {
+        long[] blocks = new long[(int) ((count + Student.ID_ALLOCATION_SIZE - 1) / Student.ID_ALLOCATION_SIZE)];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = fetchBlockStart(connection);
+        }
+        return blocks;
+    }
+
+    private static long fetchBlockStart(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        String sql = "PostgreSQL".equalsIgnoreCase(product)
+                ? "SELECT nextval('" + Student.ID_SEQUENCE + "')"
+                : "SELECT NEXT VALUE FOR " + Student.ID_SEQUENCE;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.service;
+
+import com.example.entity.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Merge mode: bulk-loads the extract into a throwaway staging table, then applies it to students
+// with a set-based update and insert keyed on source_id (the studentId column of the extract).
+// Re-loading the same or a corrected extract updates rows in place instead of appending duplicates.
+@Service
+public class StudentMergeService {
+
+    private static final int BATCH_SIZE = 5000;
+
+    // Must match the column lengths on Student so staged rows always fit the target table
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_CLASS_LENGTH = 20;
+
+    // When an extract repeats a source id, the later line wins: the staging table numbers its rows
+    // (line_no, an identity local to the table) in file order
+    private static final String LATEST_STAGED_ROWS =
+            "SELECT s.line_no, s.first_name, s.last_name, s.dob, s.class, s.score, s.source_id FROM %1$s s "
+                    + "JOIN (SELECT MAX(line_no) AS line_no FROM %1$s GROUP BY source_id) latest "
+                    + "ON latest.line_no = s.line_no";
+
+    private static final String NOT_IN_STUDENTS =
+            " WHERE NOT EXISTS (SELECT 1 FROM students t WHERE t.source_id = l.source_id)";
+
+    // Unchanged rows are skipped so re-loading an identical extract writes nothing
+    private static final String POSTGRES_UPDATE =
+            "UPDATE students t SET first_name = s.first_name, last_name = s.last_name, dob = s.dob, "
+                    + "class = s.class, score = s.score FROM (" + LATEST_STAGED_ROWS + ") s "
+                    + "WHERE t.source_id = s.source_id AND (t.first_name, t.last_name, t.dob, t.class, t.score) "
+                    + "IS DISTINCT FROM (s.first_name, s.last_name, s.dob, s.class, s.score)";
+
+    private static final String STANDARD_UPDATE =
+            "MERGE INTO students t USING (" + LATEST_STAGED_ROWS + ") s ON t.source_id = s.source_id "
+                    + "WHEN MATCHED AND (t.first_name, t.last_name, t.dob, t.class, t.score) "
+                    + "IS DISTINCT FROM (s.first_name, s.last_name, s.dob, s.class, s.score) "
+                    + "THEN UPDATE SET first_name = s.first_name, last_name = s.last_name, dob = s.dob, "
+                    + "class = s.class, score = s.score";
+
+    private static final String COUNT_NEW_ROWS =
+            "SELECT COUNT(*) FROM (" + LATEST_STAGED_ROWS + ") l" + NOT_IN_STUDENTS;
+
+    // Ids are only drawn for the rows inserted here, from blocks reserved for exactly that many rows
+    // (%2$s, block_no -> first id). A row with no block (one that was not counted) gets a null id and
+    // fails the statement instead of being dropped
+    private static final String INSERT_NEW_ROWS =
+            "INSERT INTO students (student_id, first_name, last_name, dob, class, score, source_id) "
+                    + "SELECT b.first_id + MOD(n.r, " + Student.ID_ALLOCATION_SIZE + "), "
+                    + "n.first_name, n.last_name, n.dob, n.class, n.score, n.source_id "
+                    + "FROM (SELECT l.first_name, l.last_name, l.dob, l.class, l.score, l.source_id, "
+                    + "ROW_NUMBER() OVER (ORDER BY l.line_no) - 1 AS r FROM (" + LATEST_STAGED_ROWS + ") l"
+                    + NOT_IN_STUDENTS + ") n "
+                    + "LEFT JOIN %2$s b ON b.block_no = n.r / " + Student.ID_ALLOCATION_SIZE;
+
+    // A row another merge inserted in the meantime is updated instead, as the update above would have
+    private static final String POSTGRES_ON_CONFLICT =
+            " ON CONFLICT (source_id) DO UPDATE SET first_name = EXCLUDED.first_name, "
+                    + "last_name = EXCLUDED.last_name, dob = EXCLUDED.dob, class = EXCLUDED.class, score = EXCLUDED.score "
+                    + "WHERE (students.first_name, students.last_name, students.dob, students.class, students.score) "
+                    + "IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name, EXCLUDED.dob, EXCLUDED.class, EXCLUDED.score)";
+
+    @Autowired
+    private StudentBulkWriter studentBulkWriter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RejectFileService rejectFileService;
+
+    @Autowired
+    private StudentIdAllocator studentIdAllocator;
+
+    public Map<String, Object> merge(InputStream csv) throws IOException, SQLException {
+        long startTime = System.currentTimeMillis();
+        int totalLines = 0;
+        int stagedRows = 0;
+        int rowsUpdated;
+        int rowsInserted;
+        long stageMs;
+        long mergeMs;
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        long[] batchLines = new long[BATCH_SIZE];
+        String stagingTable = "students_stage_" + UUID.randomUUID().toString().substring(0, 8);
+        String idBlockTable = stagingTable + "_ids";
+
+        System.out.println("Starting merge upload through staging table " + stagingTable + "...");
+
+        RejectCollector rejects = rejectFileService.open();
+        try (InputStreamReader in = new InputStreamReader(InputDecompressor.wrap(csv), StandardCharsets.UTF_8);
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            boolean postgres = StudentBulkWriter.METHOD_COPY.equals(studentBulkWriter.loadMethod(connection));
+            createStagingTables(connection, stagingTable, idBlockTable, postgres);
+
+            try {
+                StudentCsvTokenizer line = new StudentCsvTokenizer(in);
+                line.next(); // header
+
+                while (line.next()) {
+                    totalLines++;
+                    try {
+                        Student student = StudentCsvMapper.toStudent(line);
+                        if (student == null) {
+                            rejects.reject(totalLines, RejectCollector.INSUFFICIENT_COLUMNS, line.fieldCount() + " columns", line);
+                            continue;
+                        }
+                        if (!fitsColumns(student)) {
+                            rejects.reject(totalLines, RejectCollector.VALUE_TOO_LONG, null, line);
+                            continue;
+                        }
+                        student.setSourceId(line.parseLong(0));
+                        batchLines[batch.size()] = totalLines;
+                        batch.add(student);
+                    } catch (NumberFormatException | DateTimeParseException e) {
+                        rejects.reject(totalLines, e, line);
+                        continue;
+                    }
+
+                    if (batch.size() >= BATCH_SIZE) {
+                        stagedRows += stageBatch(connection, stagingTable, batch, batchLines, rejects);
+                        batch.clear();
+                    }
+                }
+                stagedRows += stageBatch(connection, stagingTable, batch, batchLines, rejects);
+                stageMs = System.currentTimeMillis() - startTime;
+
+                long mergeStart = System.currentTimeMillis();
+                try (Statement statement = connection.createStatement()) {
+                    analyze(statement, stagingTable, postgres);
+                    rowsUpdated = statement.executeUpdate(String.format(postgres ? POSTGRES_UPDATE : STANDARD_UPDATE, stagingTable));
+                    rowsInserted = insertNewRows(connection, statement, stagingTable, idBlockTable, postgres);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+                mergeMs = System.currentTimeMillis() - mergeStart;
+            } finally {
+                dropStagingTables(connection, stagingTable, idBlockTable);
+            }
+        } finally {
+            rejects.close();
+        }
+
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+
+        System.out.println("Merge Summary:");
+        System.out.println("Total lines processed: " + totalLines);
+        System.out.println("Lines with errors: " + rejects.getTotal());
+        System.out.println("Rows staged: " + stagedRows + ", rows inserted: " + rowsInserted + ", rows changed: " + rowsUpdated);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("naturalKey", "source_id");
+        stats.put("totalLines", totalLines);
+        stats.putAll(rejects.toMap());
+        stats.put("stagedRows", stagedRows);
+        stats.put("rowsMerged", rowsInserted + rowsUpdated);
+        stats.put("rowsInserted", rowsInserted);
+        stats.put("rowsUpdated", rowsUpdated);
+        stats.put("stageMs", stageMs);
+        stats.put("mergeMs", mergeMs);
+        stats.put("durationMs", duration);
+        stats.put("rowsPerSecond", Math.round(stagedRows / (duration / 1000.0)));
+        return stats;
+    }
+
+    private static boolean fitsColumns(Student student) {
+        return student.getFirstName().length() <= MAX_NAME_LENGTH
+                && student.getLastName().length() <= MAX_NAME_LENGTH
+                && student.getClassName().length() <= MAX_CLASS_LENGTH;
+    }
+
+    // UNLOGGED on PostgreSQL: staged rows are disposable, so they skip the WAL entirely
+    private static void createStagingTables(Connection connection, String stagingTable, String idBlockTable,
+                                            boolean postgres) throws SQLException {
+        String create = "CREATE " + (postgres ? "UNLOGGED " : "") + "TABLE ";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(create + stagingTable + " ("
+                    + "line_no BIGINT GENERATED ALWAYS AS IDENTITY, "
+                    + "first_name VARCHAR(" + MAX_NAME_LENGTH + ") NOT NULL, "
+                    + "last_name VARCHAR(" + MAX_NAME_LENGTH + ") NOT NULL, "
+                    + "dob DATE NOT NULL, "
+                    + "class VARCHAR(" + MAX_CLASS_LENGTH + ") NOT NULL, "
+                    + "score INTEGER NOT NULL, "
+                    + "source_id BIGINT NOT NULL)");
+            statement.execute(create + idBlockTable + " (block_no INTEGER PRIMARY KEY, first_id BIGINT NOT NULL)");
+            connection.commit();
+        }
+    }
+
+    private int stageBatch(Connection connection, String stagingTable, List<Student> batch, long[] batchLines,
+                           RejectCollector rejects) throws SQLException {
+        if (batch.isEmpty()) return 0;
+        try {
+            int staged = studentBulkWriter.writeIsolatingBadRows(connection, stagingTable, batch,
+                    (index, cause) -> rejects.reject(batchLines[index], cause, batch.get(index)));
+            connection.commit();
+            return staged;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    // Counts the staged rows whose source id is new, reserves ids for exactly those and inserts them.
+    // Changed and unchanged rows draw nothing from the sequence
+    private int insertNewRows(Connection connection, Statement statement, String stagingTable, String idBlockTable,
+                              boolean postgres) throws SQLException {
+        long newRows;
+        try (ResultSet rs = statement.executeQuery(String.format(COUNT_NEW_ROWS, stagingTable))) {
+            rs.next();
+            newRows = rs.getLong(1);
+        }
+        if (newRows == 0) return 0;
+
+        long[] blocks = studentIdAllocator.reserveBlocks(connection, newRows);
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + idBlockTable + " VALUES (?, ?)")) {
+            for (int i = 0; i < blocks.length; i++) {
+                ps.setInt(1, i);
+                ps.setLong(2, blocks[i]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        String insert = String.format(INSERT_NEW_ROWS, stagingTable, idBlockTable);
+        return statement.executeUpdate(postgres ? insert + POSTGRES_ON_CONFLICT : insert);
+    }
+
+    // Fresh statistics let PostgreSQL pick hash joins for the dedupe, the update and the insert.
+    // H2 only does nested-loop joins, so it gets an index for the dedupe join instead.
+    private static void analyze(Statement statement, String stagingTable, boolean postgres) throws SQLException {
+        if (postgres) {
+            statement.execute("ANALYZE " + stagingTable);
+        } else {
+            statement.execute("CREATE INDEX " + stagingTable + "_line ON " + stagingTable + " (line_no)");
+        }
+    }
+
+    private static void dropStagingTables(Connection connection, String stagingTable, String idBlockTable) {
+        try (Statement statement = connection.createStatement()) {
+            connection.rollback();
+            statement.execute("DROP TABLE IF EXISTS " + stagingTable);
+            statement.execute("DROP TABLE IF EXISTS " + idBlockTable);
+            connection.commit();
+        } catch (SQLException e) {
+            System.err.println("Could not drop staging table " + stagingTable + ": " + e.getMessage());
+        }
+    }
+}
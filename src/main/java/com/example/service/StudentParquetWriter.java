@@ -0,0 +1,577 @@
+package com.example.service;
+
+import com.github.luben.zstd.Zstd;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnWriteStore;
+import org.apache.parquet.column.ColumnWriter;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageWriteStore;
+import org.apache.parquet.column.page.PageWriter;
+import org.apache.parquet.column.statistics.SizeStatistics;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnMetaData;
+import org.apache.parquet.format.ColumnOrder;
+import org.apache.parquet.format.CompressionCodec;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.DataPageHeader;
+import org.apache.parquet.format.DataPageHeaderV2;
+import org.apache.parquet.format.DateType;
+import org.apache.parquet.format.DictionaryPageHeader;
+import org.apache.parquet.format.FieldRepetitionType;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.LogicalType;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageType;
+import org.apache.parquet.format.RowGroup;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.StringType;
+import org.apache.parquet.format.TypeDefinedOrder;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Parquet output for student rows, without Hadoop: parquet-column encodes the columns (dictionaries,
+// RLE levels, statistics) and this class lays out the file around them. Pages are zstd-compressed
+// and kept per column until the row group fills up, then written as one column chunk per column;
+// the footer follows on close. Memory is bounded by the row group size, not the row count.
+// Not thread-safe.
+public final class StudentParquetWriter implements Closeable {
+
+    public static final long DEFAULT_ROW_GROUP_BYTES = 64L * 1024 * 1024;
+
+    // The students table's columns. Spreadsheet cells are untyped, so an id, DOB or score that does
+    // not parse is written as null instead of failing the conversion
+    static final MessageType SCHEMA = Types.buildMessage()
+            .optional(PrimitiveTypeName.INT64).named("student_id")
+            .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("first_name")
+            .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("last_name")
+            .optional(PrimitiveTypeName.INT32).as(LogicalTypeAnnotation.dateType()).named("dob")
+            .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("class")
+            .optional(PrimitiveTypeName.INT32).named("score")
+            .named("student");
+
+    // v1 data pages are what every reader handles; ChunkBuffer writes v2 pages as well, and the
+    // writer version alone decides which ones parquet-column produces
+    private static final ParquetProperties PROPERTIES = properties(ParquetProperties.WriterVersion.PARQUET_1_0);
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CREATED_BY = "student-data-processor";
+    private static final int ZSTD_LEVEL = 3;
+    private static final int ROWS_BETWEEN_SIZE_CHECKS = 1000;
+
+    private final OutputStream out;
+    private final long rowGroupBytes;
+    private final ParquetProperties properties;
+    private final PageCompressor compressor = new PageCompressor();
+    private final List<ColumnDescriptor> columns = SCHEMA.getColumns();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private long position;
+    private long totalRows;
+    private long rowsInGroup;
+    private ChunkBuffers chunks;
+    private ColumnWriteStore store;
+    private ColumnWriter[] writers;
+
+    public StudentParquetWriter(OutputStream out, long rowGroupBytes) throws IOException {
+        this(out, rowGroupBytes, PROPERTIES);
+    }
+
+    StudentParquetWriter(OutputStream out, long rowGroupBytes, ParquetProperties properties) throws IOException {
+        this.out = out;
+        this.rowGroupBytes = rowGroupBytes;
+        this.properties = properties;
+        write(MAGIC);
+        startRowGroup();
+    }
+
+    // Dictionaries everywhere but the id; parquet-column falls back to plain on its own when a
+    // column turns out too distinct, so names only pay for a dictionary while it helps
+    static ParquetProperties properties(ParquetProperties.WriterVersion writerVersion) {
+        return ParquetProperties.builder()
+                .withWriterVersion(writerVersion)
+                .withPageSize(1024 * 1024)
+                .withDictionaryPageSize(1024 * 1024)
+                .withDictionaryEncoding(true)
+                .withDictionaryEncoding("student_id", false)
+                .build();
+    }
+
+    // Creates or truncates the file
+    public static StudentParquetWriter open(Path file) throws IOException {
+        return new StudentParquetWriter(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024),
+                DEFAULT_ROW_GROUP_BYTES);
+    }
+
+    public void write(Long studentId, String firstName, String lastName, LocalDate dob, String className,
+                      Integer score) throws IOException {
+        if (studentId != null) writers[0].write(studentId, 0, 1); else writers[0].writeNull(0, 0);
+        writers[1].write(binary(firstName), 0, 0);
+        writers[2].write(binary(lastName), 0, 0);
+        if (dob != null) writers[3].write((int) dob.toEpochDay(), 0, 1); else writers[3].writeNull(0, 0);
+        writers[4].write(binary(className), 0, 0);
+        if (score != null) writers[5].write(score.intValue(), 0, 1); else writers[5].writeNull(0, 0);
+        store.endRecord();
+
+        totalRows++;
+        if (++rowsInGroup % ROWS_BETWEEN_SIZE_CHECKS == 0 && store.getBufferedSize() >= rowGroupBytes) {
+            flushRowGroup();
+        }
+    }
+
+    // A row in the layout DataProcessingService.forEachStudentRow produces
+    public void writeRow(String[] row) throws IOException {
+        write(parseId(row[0]), row[1], row[2], parseDate(row[3]), row[4], parseScore(row[5]));
+    }
+
+    public long getRowCount() {
+        return totalRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+            write(footer(rowGroups, totalRows));
+        } finally {
+            out.close();
+        }
+    }
+
+    // Concatenates files written by this class: the row group bytes are copied by the kernel and
+    // only the footer is rebuilt, with every offset moved to where its row group now lives
+    public static void merge(Path target, List<Path> parts) throws IOException {
+        List<RowGroup> rowGroups = new ArrayList<>();
+        long rows = 0;
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, ByteBuffer.wrap(MAGIC));
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long footerStart = footerStart(in);
+                    FileMetaData footer = Util.readFileMetaData(new ByteArrayInputStream(readFully(in, footerStart,
+                            (int) (in.size() - 8 - footerStart))));
+                    long shift = out.position() - MAGIC.length;
+                    for (long from = MAGIC.length; from < footerStart; ) {
+                        from += in.transferTo(from, footerStart - from, out);
+                    }
+                    for (RowGroup group : footer.getRow_groups()) {
+                        shiftOffsets(group, shift);
+                        rowGroups.add(group);
+                    }
+                    rows += footer.getNum_rows();
+                }
+            }
+            writeFully(out, ByteBuffer.wrap(footer(rowGroups, rows)));
+        }
+    }
+
+    private void startRowGroup() {
+        chunks = new ChunkBuffers(columns, compressor);
+        store = properties.newColumnWriteStore(SCHEMA, chunks);
+        writers = new ColumnWriter[columns.size()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = store.getColumnWriter(columns.get(i));
+        }
+        rowsInGroup = 0;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rowsInGroup == 0) return;
+        store.close(); // pushes the last data pages and the dictionaries into the chunk buffers
+
+        long groupStart = position;
+        List<ColumnChunk> columnChunks = new ArrayList<>(columns.size());
+        long uncompressedBytes = 0;
+        for (ChunkBuffer chunk : chunks.buffers) {
+            ColumnChunk columnChunk = chunk.writeTo(this);
+            uncompressedBytes += columnChunk.getMeta_data().getTotal_uncompressed_size();
+            columnChunks.add(columnChunk);
+        }
+        RowGroup group = new RowGroup(columnChunks, uncompressedBytes, rowsInGroup);
+        group.setFile_offset(groupStart);
+        group.setTotal_compressed_size(position - groupStart);
+        rowGroups.add(group);
+
+        startRowGroup();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        write(bytes, bytes.length);
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        position += length;
+    }
+
+    private static Binary binary(String value) {
+        return Binary.fromString(value != null ? value : "");
+    }
+
+    // Ids are whole positive numbers; anything else is null
+    private static Long parseId(String value) {
+        if (value == null || value.isEmpty() || value.length() > 18) return null;
+        long id = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return null;
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    // The normalizer already produced yyyy-MM-dd; only a malformed ISO-looking cell fails here
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') return null;
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        if (year < 0 || month < 0 || day < 0) return null;
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseScore(String value) {
+        if (value == null || value.isEmpty() || value.length() > 10) return null;
+        boolean negative = value.charAt(0) == '-';
+        int from = negative ? 1 : 0;
+        if (from == value.length()) return null;
+        long score = 0;
+        for (int i = from; i < value.length(); i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return null;
+            score = score * 10 + digit;
+        }
+        score = negative ? -score : score;
+        return score >= Integer.MIN_VALUE && score <= Integer.MAX_VALUE ? (int) score : null;
+    }
+
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Footer: thrift FileMetaData, its length as a little-endian int, then the magic again
+    private static byte[] footer(List<RowGroup> rowGroups, long rows) throws IOException {
+        FileMetaData metaData = new FileMetaData(1, schemaElements(), rows, rowGroups);
+        metaData.setCreated_by(CREATED_BY);
+        // Type-defined order tells readers the min/max statistics can be used for pruning
+        List<ColumnOrder> orders = new ArrayList<>();
+        for (int i = 0; i < SCHEMA.getColumns().size(); i++) {
+            orders.add(ColumnOrder.TYPE_ORDER(new TypeDefinedOrder()));
+        }
+        metaData.setColumn_orders(orders);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Util.writeFileMetaData(metaData, bytes);
+        int length = bytes.size();
+        bytes.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(length).array());
+        bytes.write(MAGIC);
+        return bytes.toByteArray();
+    }
+
+    private static List<SchemaElement> schemaElements() {
+        List<SchemaElement> elements = new ArrayList<>();
+        SchemaElement root = new SchemaElement(SCHEMA.getName());
+        root.setNum_children(SCHEMA.getFieldCount());
+        elements.add(root);
+        for (org.apache.parquet.schema.Type field : SCHEMA.getFields()) {
+            PrimitiveType primitive = field.asPrimitiveType();
+            SchemaElement element = new SchemaElement(field.getName());
+            element.setType(formatType(primitive.getPrimitiveTypeName()));
+            element.setRepetition_type(FieldRepetitionType.valueOf(field.getRepetition().name()));
+            LogicalTypeAnnotation annotation = field.getLogicalTypeAnnotation();
+            if (annotation instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation) {
+                element.setConverted_type(ConvertedType.UTF8);
+                element.setLogicalType(LogicalType.STRING(new StringType()));
+            } else if (annotation instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation) {
+                element.setConverted_type(ConvertedType.DATE);
+                element.setLogicalType(LogicalType.DATE(new DateType()));
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    // The thrift names match parquet-column's except for byte arrays
+    private static org.apache.parquet.format.Type formatType(PrimitiveTypeName type) {
+        return type == PrimitiveTypeName.BINARY ? org.apache.parquet.format.Type.BYTE_ARRAY
+                : org.apache.parquet.format.Type.valueOf(type.name());
+    }
+
+    private static long footerStart(FileChannel in) throws IOException {
+        long size = in.size();
+        if (size < MAGIC.length * 2 + 4) throw new IOException("Not a Parquet file: too short");
+        ByteBuffer tail = ByteBuffer.wrap(readFully(in, size - 8, 8)).order(ByteOrder.LITTLE_ENDIAN);
+        int length = tail.getInt();
+        byte[] magic = new byte[MAGIC.length];
+        tail.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || length <= 0 || length > size - 12) {
+            throw new IOException("Not a Parquet file: bad footer");
+        }
+        return size - 8 - length;
+    }
+
+    private static byte[] readFully(FileChannel in, long from, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, from + buffer.position()) < 0) throw new IOException("Unexpected end of Parquet file");
+        }
+        return buffer.array();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void shiftOffsets(RowGroup group, long shift) {
+        if (group.isSetFile_offset()) group.setFile_offset(group.getFile_offset() + shift);
+        for (ColumnChunk chunk : group.getColumns()) {
+            chunk.setFile_offset(chunk.getFile_offset() + shift);
+            ColumnMetaData metaData = chunk.getMeta_data();
+            metaData.setData_page_offset(metaData.getData_page_offset() + shift);
+            if (metaData.isSetDictionary_page_offset()) {
+                metaData.setDictionary_page_offset(metaData.getDictionary_page_offset() + shift);
+            }
+        }
+    }
+
+    // Zstd for one page at a time. The raw and compressed buffers are reused across pages and columns,
+    // so a page costs no allocation once they have grown to the largest page
+    private static final class PageCompressor {
+        private final RawBytes raw = new RawBytes();
+        private byte[] compressed = new byte[0];
+        private int compressedBytes;
+
+        // Returns the page's uncompressed size
+        int compress(BytesInput bytes) throws IOException {
+            raw.reset();
+            bytes.writeAllTo(raw);
+            int bound = Math.toIntExact(Zstd.compressBound(raw.size()));
+            if (compressed.length < bound) compressed = new byte[bound];
+            long result = Zstd.compressByteArray(compressed, 0, bound, raw.bytes(), 0, raw.size(), ZSTD_LEVEL);
+            if (Zstd.isError(result)) {
+                throw new IOException("zstd compression failed: " + Zstd.getErrorName(result));
+            }
+            compressedBytes = (int) result;
+            return raw.size();
+        }
+
+        int compressedBytes() {
+            return compressedBytes;
+        }
+
+        void writeCompressedTo(OutputStream target) throws IOException {
+            target.write(compressed, 0, compressedBytes);
+        }
+    }
+
+    private static final class RawBytes extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    private static final class ChunkBuffers implements PageWriteStore {
+        private final List<ChunkBuffer> buffers = new ArrayList<>();
+
+        ChunkBuffers(List<ColumnDescriptor> columns, PageCompressor compressor) {
+            for (ColumnDescriptor column : columns) {
+                buffers.add(new ChunkBuffer(column, compressor));
+            }
+        }
+
+        @Override
+        public PageWriter getPageWriter(ColumnDescriptor column) {
+            return buffers.get(SCHEMA.getColumns().indexOf(column));
+        }
+    }
+
+    // One column's pages of the current row group, compressed, with their headers. The dictionary
+    // arrives last but has to lead the chunk, so it is kept apart
+    private static final class ChunkBuffer implements PageWriter {
+        private final ColumnDescriptor column;
+        private final PageCompressor compressor;
+        private final ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final Set<org.apache.parquet.format.Encoding> encodings = new LinkedHashSet<>();
+        private Statistics<?> statistics;
+        private long valueCount;
+        private long uncompressedBytes;
+
+        ChunkBuffer(ColumnDescriptor column, PageCompressor compressor) {
+            this.column = column;
+            this.compressor = compressor;
+        }
+
+        @Override
+        @Deprecated
+        public void writePage(BytesInput bytes, int valueCount, Statistics<?> statistics, Encoding rlEncoding,
+                              Encoding dlEncoding, Encoding valuesEncoding) throws IOException {
+            writePage(bytes, valueCount, valueCount, statistics, rlEncoding, dlEncoding, valuesEncoding);
+        }
+
+        @Override
+        public void writePage(BytesInput bytes, int valueCount, int rowCount, Statistics<?> statistics,
+                              SizeStatistics sizeStatistics, Encoding rlEncoding, Encoding dlEncoding,
+                              Encoding valuesEncoding) throws IOException {
+            writePage(bytes, valueCount, rowCount, statistics, rlEncoding, dlEncoding, valuesEncoding);
+        }
+
+        @Override
+        public void writePage(BytesInput bytes, int valueCount, int rowCount, Statistics<?> statistics,
+                              Encoding rlEncoding, Encoding dlEncoding, Encoding valuesEncoding) throws IOException {
+            // v1: levels and values are compressed together
+            int rawBytes = compressor.compress(bytes);
+            PageHeader header = new PageHeader(PageType.DATA_PAGE, rawBytes, compressor.compressedBytes());
+            header.setData_page_header(new DataPageHeader(valueCount, format(valuesEncoding), format(dlEncoding),
+                    format(rlEncoding)));
+            int before = data.size();
+            Util.writePageHeader(header, data);
+            uncompressedBytes += data.size() - before + rawBytes;
+            compressor.writeCompressedTo(data);
+
+            encodings.add(format(rlEncoding));
+            encodings.add(format(dlEncoding));
+            encodings.add(format(valuesEncoding));
+            addPage(valueCount, statistics);
+        }
+
+        @Override
+        public void writePageV2(int rowCount, int nullCount, int valueCount, BytesInput repetitionLevels,
+                                BytesInput definitionLevels, Encoding dataEncoding, BytesInput values,
+                                Statistics<?> statistics, SizeStatistics sizeStatistics) throws IOException {
+            writePageV2(rowCount, nullCount, valueCount, repetitionLevels, definitionLevels, dataEncoding, values,
+                    statistics);
+        }
+
+        @Override
+        public void writePageV2(int rowCount, int nullCount, int valueCount, BytesInput repetitionLevels,
+                                BytesInput definitionLevels, Encoding dataEncoding, BytesInput values,
+                                Statistics<?> statistics) throws IOException {
+            // v2: the RLE levels stay uncompressed ahead of the compressed values
+            int levelBytes = Math.toIntExact(repetitionLevels.size() + definitionLevels.size());
+            int rawBytes = compressor.compress(values);
+            PageHeader header = new PageHeader(PageType.DATA_PAGE_V2, levelBytes + rawBytes,
+                    levelBytes + compressor.compressedBytes());
+            header.setData_page_header_v2(new DataPageHeaderV2(valueCount, nullCount, rowCount, format(dataEncoding),
+                    Math.toIntExact(definitionLevels.size()), Math.toIntExact(repetitionLevels.size())));
+            int before = data.size();
+            Util.writePageHeader(header, data);
+            uncompressedBytes += data.size() - before + levelBytes + rawBytes;
+            repetitionLevels.writeAllTo(data);
+            definitionLevels.writeAllTo(data);
+            compressor.writeCompressedTo(data);
+
+            encodings.add(org.apache.parquet.format.Encoding.RLE);
+            encodings.add(format(dataEncoding));
+            addPage(valueCount, statistics);
+        }
+
+        @Override
+        public void writeDictionaryPage(DictionaryPage page) throws IOException {
+            int rawBytes = compressor.compress(page.getBytes());
+            PageHeader header = new PageHeader(PageType.DICTIONARY_PAGE, rawBytes, compressor.compressedBytes());
+            header.setDictionary_page_header(new DictionaryPageHeader(page.getDictionarySize(), format(page.getEncoding())));
+            int before = dictionary.size();
+            Util.writePageHeader(header, dictionary);
+            uncompressedBytes += dictionary.size() - before + rawBytes;
+            compressor.writeCompressedTo(dictionary);
+            encodings.add(format(page.getEncoding()));
+        }
+
+        private void addPage(int valueCount, Statistics<?> statistics) {
+            this.valueCount += valueCount;
+            if (this.statistics == null) {
+                this.statistics = statistics.copy();
+            } else {
+                this.statistics.mergeStatistics(statistics);
+            }
+        }
+
+        @Override
+        public long getMemSize() {
+            return dictionary.size() + data.size();
+        }
+
+        @Override
+        public long allocatedSize() {
+            return getMemSize();
+        }
+
+        @Override
+        public String memUsageString(String prefix) {
+            return prefix + " " + Arrays.toString(column.getPath()) + " " + getMemSize() + " bytes";
+        }
+
+        // Appends dictionary and data pages at the writer's current position and describes them
+        ColumnChunk writeTo(StudentParquetWriter writer) throws IOException {
+            long chunkStart = writer.position;
+            long dataStart = chunkStart + dictionary.size();
+            writer.write(dictionary.toByteArray());
+            writer.write(data.toByteArray());
+            long compressedBytes = writer.position - chunkStart;
+
+            ColumnMetaData metaData = new ColumnMetaData(
+                    formatType(column.getPrimitiveType().getPrimitiveTypeName()),
+                    new ArrayList<>(encodings), Arrays.asList(column.getPath()), CompressionCodec.ZSTD,
+                    valueCount, uncompressedBytes, compressedBytes, dataStart);
+            if (dictionary.size() > 0) metaData.setDictionary_page_offset(chunkStart);
+            if (statistics != null) {
+                org.apache.parquet.format.Statistics chunkStatistics = new org.apache.parquet.format.Statistics();
+                chunkStatistics.setNull_count(statistics.getNumNulls());
+                if (statistics.hasNonNullValue()) {
+                    chunkStatistics.setMin_value(statistics.getMinBytes());
+                    chunkStatistics.setMax_value(statistics.getMaxBytes());
+                }
+                metaData.setStatistics(chunkStatistics);
+            }
+            ColumnChunk chunk = new ColumnChunk(chunkStart);
+            chunk.setMeta_data(metaData);
+            return chunk;
+        }
+
+        private static org.apache.parquet.format.Encoding format(Encoding encoding) {
+            return org.apache.parquet.format.Encoding.valueOf(encoding.name());
+        }
+    }
+}
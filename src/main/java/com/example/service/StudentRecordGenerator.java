@@ -0,0 +1,210 @@
+package com.example.service;
+
+import com.example.dto.GenerationProfile;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// The record generator behind every generation target, compiled once per request from a
+// GenerationProfile. Immutable, so the range workers share it; every draw comes from the range's
+// own SplittableRandom, in a fixed order per row, which keeps seeded output reproducible.
+// The default profile draws exactly like the original generator: 10 first names, 10 last names,
+// 10 fixed dates and 5 classes uniformly, scores 55..75.
+public final class StudentRecordGenerator {
+
+    public static final StudentRecordGenerator DEFAULT = from(null);
+
+    // Names past this many are synthesized on every draw rather than tabled
+    private static final int NAME_TABLE_LIMIT = 65_536;
+    // Tabled values go to the xlsx writer as shared strings, a whole column's values or none of them,
+    // while the table stays this small; anything else is written inline
+    private static final int SHARED_STRINGS_LIMIT = 100_000;
+    // Consonant-vowel pairs, so a synthesized name splits back into syllables one way only
+    private static final String[] SYLLABLES = syllables("bdfghklmnprstvz", "aeiou");
+
+    @FunctionalInterface
+    public interface RecordSink<E extends Exception> {
+        void accept(long studentId, String firstName, String lastName, String dob, String className, int score) throws E;
+    }
+
+    private final String[] firstNames;
+    private final int firstNameCardinality;
+    private final String[] lastNames;
+    private final int lastNameCardinality;
+    private final String[] dates;
+    private final Map<String, LocalDate> dateValues;
+    private final String[] classes;
+    private final double[] classCumulative;
+    private final boolean normalScores;
+    private final int scoreMin;
+    private final int scoreMax;
+    private final double scoreMean;
+    private final double scoreStdDev;
+    private final List<String> vocabulary;
+
+    private StudentRecordGenerator(GenerationProfile profile) {
+        firstNameCardinality = orDefault(profile.getFirstNameCardinality(), DataGenerationService.FIRST_NAMES.length);
+        firstNames = nameTable(firstNameCardinality, DataGenerationService.FIRST_NAMES);
+        lastNameCardinality = orDefault(profile.getLastNameCardinality(), DataGenerationService.LAST_NAMES.length);
+        lastNames = lastNameCardinality > 0 ? nameTable(lastNameCardinality, DataGenerationService.LAST_NAMES) : null;
+
+        if (profile.getDobFrom() != null) {
+            LocalDate from = LocalDate.parse(profile.getDobFrom());
+            int days = (int) (LocalDate.parse(profile.getDobTo()).toEpochDay() - from.toEpochDay()) + 1;
+            dates = new String[days];
+            for (int i = 0; i < days; i++) {
+                dates[i] = from.plusDays(i).toString();
+            }
+        } else {
+            dates = DataGenerationService.DATE_PATTERNS;
+        }
+        Map<String, LocalDate> values = new HashMap<>();
+        for (String date : dates) {
+            values.put(date, LocalDate.parse(date));
+        }
+        dateValues = Map.copyOf(values);
+
+        int classCount = orDefault(profile.getClassCount(), DataGenerationService.CLASSES.length);
+        classes = new String[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classes[i] = "Class" + (i + 1);
+        }
+        double skew = profile.getClassSkew() != null ? profile.getClassSkew() : 0;
+        classCumulative = skew > 0 ? zipfCumulative(classCount, skew) : null;
+
+        normalScores = GenerationProfile.SCORES_NORMAL.equals(profile.getScoreDistribution());
+        scoreMin = orDefault(profile.getScoreMin(), GenerationProfile.DEFAULT_SCORE_MIN);
+        scoreMax = orDefault(profile.getScoreMax(), GenerationProfile.DEFAULT_SCORE_MAX);
+        scoreMean = profile.getScoreMean() != null ? profile.getScoreMean() : (scoreMin + scoreMax) / 2.0;
+        scoreStdDev = profile.getScoreStdDev() != null ? profile.getScoreStdDev() : Math.max((scoreMax - scoreMin) / 6.0, 0.5);
+
+        List<String> shared = new ArrayList<>();
+        for (String[] column : new String[][] {firstNames, lastNames, dates, classes}) {
+            if (column != null && shared.size() + column.length <= SHARED_STRINGS_LIMIT) {
+                shared.addAll(Arrays.asList(column));
+            }
+        }
+        vocabulary = List.copyOf(shared);
+    }
+
+    // profile null is the default; otherwise it must have passed getValidationErrors
+    public static StudentRecordGenerator from(GenerationProfile profile) {
+        return new StudentRecordGenerator(profile != null ? profile : new GenerationProfile());
+    }
+
+    // The rows of one range, studentIds firstRow + 1 onwards
+    public <E extends Exception> void generate(int firstRow, int rows, SplittableRandom random, RecordSink<E> sink) throws E {
+        for (int i = 1; i <= rows; i++) {
+            long studentId = firstRow + i;
+            String firstName = firstNames != null
+                    ? firstNames[random.nextInt(firstNames.length)]
+                    : name(random.nextInt(firstNameCardinality), DataGenerationService.FIRST_NAMES);
+            String lastName;
+            if (lastNames != null) {
+                lastName = lastNames[random.nextInt(lastNames.length)];
+            } else if (lastNameCardinality > 0) {
+                lastName = name(random.nextInt(lastNameCardinality), DataGenerationService.LAST_NAMES);
+            } else {
+                lastName = synthesizedName(studentId);
+            }
+            String dob = dates[random.nextInt(dates.length)];
+            String className = classes[classCumulative != null ? zipfIndex(random) : random.nextInt(classes.length)];
+            sink.accept(studentId, firstName, lastName, dob, className, score(random));
+        }
+    }
+
+    // Strings worth sharing in a workbook, in a fixed order
+    public List<String> vocabulary() {
+        return vocabulary;
+    }
+
+    // dob as generated to the date it stands for
+    LocalDate dobDate(String dob) {
+        return dateValues.get(dob);
+    }
+
+    private int score(SplittableRandom random) {
+        if (!normalScores) {
+            return scoreMin + random.nextInt(scoreMax - scoreMin + 1);
+        }
+        long score = Math.round(scoreMean + scoreStdDev * random.nextGaussian());
+        return (int) Math.max(scoreMin, Math.min(scoreMax, score));
+    }
+
+    // First class whose cumulative weight exceeds a uniform draw
+    private int zipfIndex(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = classCumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classCumulative[mid] > u) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    private static double[] zipfCumulative(int count, double skew) {
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int k = 1; k <= count; k++) {
+            total += 1 / Math.pow(k, skew);
+            cumulative[k - 1] = total;
+        }
+        for (int k = 0; k < count; k++) {
+            cumulative[k] /= total;
+        }
+        cumulative[count - 1] = 1.0; // rounding must not leave a gap at the top
+        return cumulative;
+    }
+
+    // Built-in names first, then synthesized ones; null when there are too many to table
+    private static String[] nameTable(int cardinality, String[] builtIn) {
+        if (cardinality > NAME_TABLE_LIMIT) return null;
+        String[] names = new String[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            names[i] = name(i, builtIn);
+        }
+        return names;
+    }
+
+    private static String name(int index, String[] builtIn) {
+        return index < builtIn.length ? builtIn[index] : synthesizedName(index);
+    }
+
+    // index written in bijective base SYLLABLES.length, so every index has its own name. Offsetting
+    // by one- and two-syllable numbers makes every name at least three syllables long, longer than
+    // any built-in name of the same consonant-vowel shape
+    static String synthesizedName(long index) {
+        int base = SYLLABLES.length;
+        long n = index + base + (long) base * base + 1;
+        StringBuilder name = new StringBuilder(12);
+        while (n > 0) {
+            n--;
+            name.append(SYLLABLES[(int) (n % base)]);
+            n /= base;
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private static String[] syllables(String consonants, String vowels) {
+        String[] syllables = new String[consonants.length() * vowels.length()];
+        int i = 0;
+        for (char c : consonants.toCharArray()) {
+            for (char v : vowels.toCharArray()) {
+                syllables[i++] = "" + c + v;
+            }
+        }
+        return syllables;
+    }
+
+    private static int orDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+}
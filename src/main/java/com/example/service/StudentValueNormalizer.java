@@ -0,0 +1,153 @@
+package com.example.service;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.time.LocalDate;
+
+// DOB and score normalization for Excel -> CSV conversion, memoized by raw cell value.
+// Real workbooks repeat a small set of raw dates and scores, so after the first few hundred rows
+// nearly every cell is a cache hit. The parsers never throw: a value that fits no layout simply
+// falls back like before. Not thread-safe; each sheet pass owns one instance.
+public final class StudentValueNormalizer {
+
+    private static final int SLOTS = 1024;
+    private static final String DEFAULT_SCORE = "70"; // default (60+10)
+    private static final int SCORE_INCREMENT = 10;
+
+    // Fallback for missing or unparseable dates, fixed when the pass starts
+    private final String today = LocalDate.now().toString();
+
+    private final String[] dateKeys = new String[SLOTS];
+    private final String[] dateValues = new String[SLOTS];
+    private final String[] scoreKeys = new String[SLOTS];
+    private final String[] scoreValues = new String[SLOTS];
+    private final long[] serialKeys = new long[SLOTS];
+    private final String[] serialValues = new String[SLOTS];
+    // Numeric scores are small integers; their +10 strings are built once
+    private final String[] numericScores = new String[256];
+
+    public String today() {
+        return today;
+    }
+
+    // Text dates: ISO prefix as is, else dd/MM/yyyy, MM/dd/yyyy, dd-MM-yyyy in that order; today when nothing fits
+    public String date(String raw) {
+        if (raw == null) return today;
+        int slot = slot(raw.hashCode());
+        if (raw.equals(dateKeys[slot])) return dateValues[slot];
+        String value = parseDate(raw);
+        dateKeys[slot] = raw;
+        dateValues[slot] = value;
+        return value;
+    }
+
+    // Date-formatted numeric cells, keyed by the serial number
+    public String excelDate(double serial, boolean date1904) {
+        long bits = Double.doubleToLongBits(serial) ^ (date1904 ? 1 : 0);
+        int slot = slot(Long.hashCode(bits));
+        if (serialValues[slot] != null && serialKeys[slot] == bits) return serialValues[slot];
+        String value = DateUtil.getLocalDateTime(serial, date1904).toLocalDate().toString();
+        serialKeys[slot] = bits;
+        serialValues[slot] = value;
+        return value;
+    }
+
+    // Text scores: digits and sign only, +10; 70 when missing or unparseable
+    public String score(String raw) {
+        if (raw == null) return DEFAULT_SCORE;
+        int slot = slot(raw.hashCode());
+        if (raw.equals(scoreKeys[slot])) return scoreValues[slot];
+        String value = parseScore(raw);
+        scoreKeys[slot] = raw;
+        scoreValues[slot] = value;
+        return value;
+    }
+
+    // Numeric scores, rounded like Math.round, +10
+    public String score(double raw) {
+        int score = (int) Math.round(raw) + SCORE_INCREMENT;
+        if (score < 0 || score >= numericScores.length) return String.valueOf(score);
+        String value = numericScores[score];
+        if (value == null) {
+            value = String.valueOf(score);
+            numericScores[score] = value;
+        }
+        return value;
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (SLOTS - 1);
+    }
+
+    private String parseDate(String raw) {
+        String s = raw.trim();
+        if (s.isEmpty()) return today;
+        if (s.length() >= 10 && s.charAt(4) == '-' && s.charAt(7) == '-') {
+            return s.substring(0, 10);
+        }
+        if (s.length() != 10) return today;
+
+        char separator = s.charAt(2);
+        if (separator != s.charAt(5)) return today;
+        int first = digits(s, 0, 2);
+        int second = digits(s, 3, 2);
+        int year = digits(s, 6, 4);
+        if (first < 0 || second < 0 || year < 1) return today;
+
+        if (separator == '/') {
+            // dd/MM/yyyy wins when both readings are valid, like the formatter order it replaces
+            LocalDate date = resolve(year, second, first);
+            if (date == null) date = resolve(year, first, second);
+            return date != null ? date.toString() : today;
+        }
+        if (separator == '-') {
+            LocalDate date = resolve(year, second, first);
+            return date != null ? date.toString() : today;
+        }
+        return today;
+    }
+
+    // Same resolution as DateTimeFormatter's SMART mode: month 1-12, day 1-31 clamped to the month length
+    private static LocalDate resolve(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > 31) return null;
+        LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+        return firstOfMonth.withDayOfMonth(Math.min(day, firstOfMonth.lengthOfMonth()));
+    }
+
+    // Value of count ASCII digits at from, or -1
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Integer.parseInt of the value with everything but digits and '-' removed, without the
+    // regex and without exceptions
+    private static String parseScore(String raw) {
+        boolean negative = false;
+        boolean sawDigit = false;
+        boolean sawSign = false;
+        long value = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '-') {
+                // Only a single leading sign parses
+                if (sawSign || sawDigit) return DEFAULT_SCORE;
+                sawSign = true;
+                negative = true;
+            } else if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                value = value * 10 + (c - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) return DEFAULT_SCORE;
+            }
+        }
+        if (!sawDigit) return DEFAULT_SCORE;
+        long signed = negative ? -value : value;
+        if (signed > Integer.MAX_VALUE) return DEFAULT_SCORE;
+        return String.valueOf((int) signed + SCORE_INCREMENT);
+    }
+}
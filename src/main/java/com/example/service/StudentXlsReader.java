@@ -0,0 +1,240 @@
+package com.example.service;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.RecordFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal legacy .xls (BIFF8) reader for the student layout, on POI's HSSF event API instead of a
+// full HSSFWorkbook. Opening walks only the workbook globals: sheet names and stream offsets,
+// shared strings, number formats and the 1904 flag. A sheet is then streamed record by record from
+// its own offset into one reused Row, so memory stays flat however long the sheet is; only the
+// shared-string table is held. Rows come out exactly like StudentXlsxReader's.
+// Different sheets can be streamed from several threads at once, each pass opens its own view of the file.
+public final class StudentXlsReader {
+
+    private final Path workbookFile;
+    private final List<String> sheetNames;
+    private final List<Integer> sheetOffsets;
+    private final SSTRecord sharedStrings;
+    private final boolean[] dateStyles;
+    private final boolean date1904;
+
+    private StudentXlsReader(Path workbookFile, Globals globals) {
+        this.workbookFile = workbookFile;
+        this.sheetNames = globals.sheetNames;
+        this.sheetOffsets = globals.sheetOffsets;
+        this.sharedStrings = globals.sharedStrings;
+        this.dateStyles = globals.dateStyles();
+        this.date1904 = globals.date1904;
+    }
+
+    public static StudentXlsReader open(Path workbookFile) throws IOException {
+        Globals globals = new Globals();
+        process(workbookFile, 0, globals);
+        if (globals.encrypted) {
+            throw new IOException("Password-protected .xls workbooks are not supported");
+        }
+        return new StudentXlsReader(workbookFile, globals);
+    }
+
+    public List<String> sheetNames() {
+        return sheetNames;
+    }
+
+    // Streams one sheet, returning the number of rows seen including the header
+    public <E extends Exception> int forEachRow(int sheetIndex, StudentXlsxReader.RowHandler<E> handler) throws IOException, E {
+        SheetListener<E> listener = new SheetListener<>(handler);
+        process(workbookFile, sheetOffsets.get(sheetIndex), listener);
+        listener.rethrow();
+        return listener.rows;
+    }
+
+    // Runs the listener over the Workbook stream from offset (a BOF record) until it aborts
+    private static void process(Path workbookFile, int offset, AbortableHSSFListener listener) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(workbookFile.toFile(), true);
+             InputStream in = fs.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(fs.getRoot()))) {
+            in.skipNBytes(offset);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener);
+            new HSSFEventFactory().abortableProcessEvents(request, in);
+        } catch (UnsupportedFileFormatException | EncryptedDocumentException | RecordFormatException | HSSFUserException e) {
+            // UnsupportedFileFormatException covers non-OLE2 files as well as BIFF5 and older workbooks
+            throw new IOException("Not a readable .xls workbook: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class Globals extends AbortableHSSFListener {
+        private final List<String> sheetNames = new ArrayList<>();
+        private final List<Integer> sheetOffsets = new ArrayList<>();
+        private final Map<Integer, String> customFormats = new HashMap<>();
+        private final List<Integer> styleFormats = new ArrayList<>();
+        private SSTRecord sharedStrings;
+        private boolean date1904;
+        private boolean encrypted;
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            if (record instanceof BoundSheetRecord sheet) {
+                sheetNames.add(sheet.getSheetname());
+                sheetOffsets.add(sheet.getPositionOfBof());
+            } else if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+            } else if (record instanceof FormatRecord format) {
+                customFormats.put(format.getIndexCode(), format.getFormatString());
+            } else if (record instanceof ExtendedFormatRecord xf) {
+                styleFormats.add(xf.getFormatIndex() & 0xffff);
+            } else if (record instanceof DateWindow1904Record window) {
+                date1904 = window.getWindowing() == 1;
+            } else if (record instanceof FilePassRecord) {
+                encrypted = true;
+                return 1;
+            } else if (record instanceof EOFRecord) {
+                return 1; // end of the globals, the sheets follow
+            }
+            return 0;
+        }
+
+        // Cells point at an extended format (XF) by index, the XF at a built-in or custom number format
+        boolean[] dateStyles() {
+            boolean[] dateStyles = new boolean[styleFormats.size()];
+            for (int i = 0; i < dateStyles.length; i++) {
+                int format = styleFormats.get(i);
+                String formatString = customFormats.getOrDefault(format, BuiltinFormats.getBuiltinFormat(format));
+                dateStyles[i] = DateUtil.isADateFormat(format, formatString);
+            }
+            return dateStyles;
+        }
+    }
+
+    // Cell records of a sheet arrive grouped by row and in row order, so a row is complete as soon as
+    // a cell of the next one (or the sheet's EOF) shows up. Rows without cells produce no records, so
+    // rows are numbered by their sheet row, not counted, to keep blank rows from shifting the numbers
+    private final class SheetListener<E extends Exception> extends AbortableHSSFListener {
+        private final StudentXlsxReader.RowHandler<E> handler;
+        private final StudentXlsxReader.Row row = new StudentXlsxReader.Row(date1904);
+        private int depth;
+        private int currentRow = -1;
+        private int formulaStringColumn = -1;
+        private int rows;
+        private Exception failure;
+
+        SheetListener(StudentXlsxReader.RowHandler<E> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            try {
+                // Charts and other embedded objects are BOF..EOF substreams inside the sheet
+                if (record instanceof BOFRecord) {
+                    depth++;
+                } else if (record instanceof EOFRecord) {
+                    if (--depth == 0) {
+                        if (currentRow >= 0) endRow();
+                        return 1;
+                    }
+                } else if (depth == 1) {
+                    cell(record);
+                }
+                return 0;
+            } catch (Exception e) {
+                failure = e;
+                return 1;
+            }
+        }
+
+        private void endRow() throws E {
+            rows++;
+            handler.accept(currentRow + 1, row);
+        }
+
+        private void cell(Record record) throws E {
+            // A string formula's cached result comes in a STRING record after it, behind the SHRFMLA,
+            // ARRAY or TABLE record of a shared, array or table formula; only the next cell ends the wait
+            if (record instanceof StringRecord string) {
+                if (formulaStringColumn >= 0) row.setText(formulaStringColumn, string.getString());
+                formulaStringColumn = -1;
+                return;
+            }
+            if (!(record instanceof CellValueRecordInterface cell)) return;
+            formulaStringColumn = -1;
+
+            if (cell.getRow() != currentRow) {
+                if (currentRow >= 0) endRow();
+                row.clear();
+                currentRow = cell.getRow();
+            }
+            int column = cell.getColumn();
+            if (column >= StudentXlsxReader.COLUMNS) return;
+
+            if (record instanceof LabelSSTRecord label) {
+                row.setText(column, sharedStrings.getString(label.getSSTIndex()).getString());
+            } else if (record instanceof NumberRecord number) {
+                // RK and MulRK cells reach the listener already converted to NumberRecords
+                row.setNumber(column, number.getValue(), isDateStyle(number.getXFIndex()));
+            } else if (record instanceof LabelRecord label) {
+                row.setText(column, label.getValue());
+            } else if (record instanceof BoolErrRecord boolErr) {
+                row.setText(column, boolErr.isBoolean()
+                        ? (boolErr.getBooleanValue() ? "TRUE" : "FALSE")
+                        : FormulaError.forInt(boolErr.getErrorValue()).getString());
+            } else if (record instanceof FormulaRecord formula) {
+                CellType type = formula.getCachedResultTypeEnum();
+                switch (type) {
+                    case NUMERIC -> row.setNumber(column, formula.getValue(), isDateStyle(formula.getXFIndex()));
+                    case STRING -> formulaStringColumn = column;
+                    case BOOLEAN -> row.setText(column, formula.getCachedBooleanValue() ? "TRUE" : "FALSE");
+                    case ERROR -> row.setText(column, FormulaError.forInt(formula.getCachedErrorValue()).getString());
+                    default -> {
+                        // an empty cached result leaves the cell missing, like a blank
+                    }
+                }
+            }
+        }
+
+        private boolean isDateStyle(short xfIndex) {
+            int style = xfIndex & 0xffff;
+            return style < dateStyles.length && dateStyles[style];
+        }
+
+        @SuppressWarnings("unchecked")
+        void rethrow() throws E {
+            if (failure instanceof RuntimeException e) throw e;
+            if (failure != null) throw (E) failure;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.example.service;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Minimal .xlsx reader for the student layout. Sheet XML is walked with a StAX loop and only the
+// first COLUMNS cells of each row are kept, typed straight from the cell attributes.
+// Shared strings are decoded once into a memory-mapped temp file, so a workbook with millions of
+// distinct names costs the heap nothing per string.
+// Different sheets of one reader can be streamed from several threads at once.
+public final class StudentXlsxReader implements Closeable {
+
+    public static final int COLUMNS = 6;
+
+    private final OPCPackage pkg;
+    private final List<String> sheetNames;
+    private final List<PackagePart> sheetParts;
+    private final boolean[] dateStyles;
+    private final boolean date1904;
+    private final SharedStrings sharedStrings;
+
+    private StudentXlsxReader(OPCPackage pkg, List<String> sheetNames, List<PackagePart> sheetParts,
+                              boolean[] dateStyles, boolean date1904, SharedStrings sharedStrings) {
+        this.pkg = pkg;
+        this.sheetNames = sheetNames;
+        this.sheetParts = sheetParts;
+        this.dateStyles = dateStyles;
+        this.date1904 = date1904;
+        this.sharedStrings = sharedStrings;
+    }
+
+    public static StudentXlsxReader open(Path workbookFile) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(workbookFile.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException | UnsupportedFileFormatException e) {
+            throw new IOException("Not a readable .xlsx workbook: " + e.getMessage(), e);
+        }
+        try {
+            XSSFReader xssf = new XSSFReader(pkg);
+            List<String> sheetNames = new ArrayList<>();
+            List<PackagePart> sheetParts = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssf.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                sheetNames.add(sheets.getSheetName());
+                sheetParts.add(sheets.getSheetPart());
+            }
+            boolean[] dateStyles = dateStyles(xssf.getStylesTable());
+            boolean date1904;
+            try (InputStream workbook = xssf.getWorkbookData()) {
+                date1904 = isDate1904(workbook);
+            }
+            return new StudentXlsxReader(pkg, sheetNames, sheetParts, dateStyles, date1904, SharedStrings.load(xssf));
+        } catch (OpenXML4JException | XMLStreamException e) {
+            pkg.revert();
+            throw new IOException("Not a readable .xlsx workbook: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    public List<String> sheetNames() {
+        return sheetNames;
+    }
+
+    public int sharedStringCount() {
+        return sharedStrings.count();
+    }
+
+    public long sharedStringBytes() {
+        return sharedStrings.bytes();
+    }
+
+    @FunctionalInterface
+    public interface RowHandler<E extends Exception> {
+        // rowNum is the 1-based sheet row, so 1 is the header and blank rows leave gaps
+        void accept(int rowNum, Row row) throws E;
+    }
+
+    // Streams one sheet, returning the number of rows seen including the header
+    public <E extends Exception> int forEachRow(int sheetIndex, RowHandler<E> handler) throws IOException, E {
+        Row row = new Row(sharedStrings, date1904);
+        int rows = 0;
+        try (InputStream in = sheetParts.get(sheetIndex).getInputStream()) {
+            XMLStreamReader xml = newXmlInputFactory().createXMLStreamReader(in);
+            try {
+                int rowNum = 0;
+                int nextColumn = 0;
+                int column = -1;
+                byte type = Row.NUMBER;
+                int style = 0;
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (xml.getLocalName()) {
+                            case "row" -> {
+                                // r is optional; without it the row follows the previous one
+                                String r = xml.getAttributeValue(null, "r");
+                                rowNum = r != null ? Integer.parseInt(r) : rowNum + 1;
+                                row.clear();
+                                nextColumn = 0;
+                            }
+                            case "c" -> {
+                                column = columnOf(xml.getAttributeValue(null, "r"), nextColumn);
+                                nextColumn = column + 1;
+                                type = typeOf(xml.getAttributeValue(null, "t"));
+                                String s = xml.getAttributeValue(null, "s");
+                                style = s == null ? 0 : Integer.parseInt(s);
+                            }
+                            case "v" -> {
+                                if (column >= 0 && column < COLUMNS) {
+                                    row.set(column, type, xml.getElementText(), isDateStyle(style));
+                                }
+                            }
+                            case "is" -> {
+                                if (column >= 0 && column < COLUMNS) {
+                                    row.set(column, Row.TEXT, readRichText(xml, "is"), false);
+                                }
+                            }
+                            default -> {
+                                // f, extLst and friends carry nothing the student layout needs
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = xml.getLocalName();
+                        if ("c".equals(name)) {
+                            column = -1;
+                        } else if ("row".equals(name)) {
+                            rows++;
+                            handler.accept(rowNum, row);
+                        }
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sheet " + sheetNames.get(sheetIndex) + ": " + e.getMessage(), e);
+        }
+        return rows;
+    }
+
+    private boolean isDateStyle(int style) {
+        return style < dateStyles.length && dateStyles[style];
+    }
+
+    @Override
+    public void close() {
+        pkg.revert(); // read-only package, close() would try to save it
+        sharedStrings.close();
+    }
+
+    // The first COLUMNS cells of the current row; reused for every row of a sheet
+    public static final class Row {
+        static final byte EMPTY = 0;
+        static final byte TEXT = 1;
+        static final byte NUMBER = 2;
+        static final byte SHARED_STRING = 3;
+        static final byte BOOLEAN = 4;
+
+        private static final MathContext GENERAL_PRECISION = new MathContext(11);
+
+        private final SharedStrings sharedStrings;
+        private final boolean date1904;
+        private final byte[] types = new byte[COLUMNS];
+        private final String[] text = new String[COLUMNS];
+        private final double[] numbers = new double[COLUMNS];
+        private final boolean[] dates = new boolean[COLUMNS];
+        // Direct-mapped index -> String cache: names and classes repeat, decoding them once is enough
+        private final int[] cachedIndex = new int[4096];
+        private final String[] cachedString = new String[4096];
+
+        private Row(SharedStrings sharedStrings, boolean date1904) {
+            this.sharedStrings = sharedStrings;
+            this.date1904 = date1904;
+            Arrays.fill(cachedIndex, -1);
+        }
+
+        // For StudentXlsReader, which fills cells with setText / setNumber and has no shared strings to resolve
+        Row(boolean date1904) {
+            this(null, date1904);
+        }
+
+        void clear() {
+            Arrays.fill(types, EMPTY);
+        }
+
+        void setText(int column, String value) {
+            types[column] = TEXT;
+            text[column] = value;
+        }
+
+        void setNumber(int column, double value, boolean dateStyle) {
+            types[column] = NUMBER;
+            numbers[column] = value;
+            dates[column] = dateStyle && DateUtil.isValidExcelDate(value);
+        }
+
+        private void set(int column, byte type, String value, boolean dateStyle) {
+            switch (type) {
+                case NUMBER -> {
+                    try {
+                        numbers[column] = Double.parseDouble(value);
+                        dates[column] = dateStyle && DateUtil.isValidExcelDate(numbers[column]);
+                    } catch (NumberFormatException e) {
+                        type = TEXT;
+                    }
+                }
+                case SHARED_STRING -> {
+                    type = TEXT;
+                    value = sharedString(value);
+                }
+                case BOOLEAN -> {
+                    type = TEXT;
+                    value = "1".equals(value) || "true".equals(value) ? "TRUE" : "FALSE";
+                }
+                default -> {
+                    // inline, formula and error strings are already text
+                }
+            }
+            types[column] = type;
+            text[column] = value;
+        }
+
+        private String sharedString(String indexText) {
+            int index;
+            try {
+                index = Integer.parseInt(indexText.trim());
+            } catch (NumberFormatException e) {
+                return "";
+            }
+            int slot = index & (cachedIndex.length - 1);
+            if (cachedIndex[slot] != index) {
+                cachedString[slot] = sharedStrings.get(index);
+                cachedIndex[slot] = index;
+            }
+            return cachedString[slot];
+        }
+
+        public boolean isNumber(int column) {
+            return types[column] == NUMBER;
+        }
+
+        public boolean isDate(int column) {
+            return types[column] == NUMBER && dates[column];
+        }
+
+        public double number(int column) {
+            return numbers[column];
+        }
+
+        public boolean isDate1904() {
+            return date1904;
+        }
+
+        // Text as Excel shows it under the General format; null for a missing cell
+        public String text(int column) {
+            return switch (types[column]) {
+                case EMPTY -> null;
+                case NUMBER -> generalFormat(numbers[column]);
+                default -> text[column];
+            };
+        }
+
+        private static String generalFormat(double value) {
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return Long.toString((long) value);
+            }
+            return new BigDecimal(value).round(GENERAL_PRECISION).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static byte typeOf(String t) {
+        if (t == null || "n".equals(t)) return Row.NUMBER;
+        return switch (t) {
+            case "s" -> Row.SHARED_STRING;
+            case "b" -> Row.BOOLEAN;
+            default -> Row.TEXT; // str, inlineStr, e, d
+        };
+    }
+
+    // "C12" -> 2; cells without a reference follow the previous one
+    private static int columnOf(String ref, int nextColumn) {
+        if (ref == null) return nextColumn;
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    // Concatenates the <t> runs of a string item, skipping phonetic (rPh) runs
+    private static String readRichText(XMLStreamReader xml, String endElement) throws XMLStreamException {
+        StringBuilder sb = null;
+        String single = null;
+        int phoneticDepth = 0;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("rPh".equals(name)) {
+                    phoneticDepth++;
+                } else if ("t".equals(name) && phoneticDepth == 0) {
+                    String run = xml.getElementText();
+                    if (single == null && sb == null) {
+                        single = run;
+                    } else {
+                        if (sb == null) sb = new StringBuilder(single);
+                        sb.append(run);
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("rPh".equals(name)) {
+                    phoneticDepth--;
+                } else if (endElement.equals(name)) {
+                    break;
+                }
+            }
+        }
+        String text = sb != null ? sb.toString() : single != null ? single : "";
+        return text.indexOf("_x") >= 0 ? decodeEscapes(text) : text;
+    }
+
+    // OOXML escapes control characters as _xHHHH_
+    private static String decodeEscapes(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            if (i + 7 <= text.length() && text.charAt(i) == '_' && text.charAt(i + 1) == 'x' && text.charAt(i + 6) == '_') {
+                try {
+                    sb.append((char) Integer.parseInt(text.substring(i + 2, i + 6), 16));
+                    i += 7;
+                    continue;
+                } catch (NumberFormatException ignored) {
+                    // not an escape, copy as is
+                }
+            }
+            sb.append(text.charAt(i++));
+        }
+        return sb.toString();
+    }
+
+    private static boolean[] dateStyles(StylesTable styles) {
+        if (styles == null) return new boolean[0];
+        boolean[] dateStyles = new boolean[styles.getNumCellStyles()];
+        for (int i = 0; i < dateStyles.length; i++) {
+            XSSFCellStyle style = styles.getStyleAt(i);
+            dateStyles[i] = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+        return dateStyles;
+    }
+
+    private static boolean isDate1904(InputStream workbook) throws XMLStreamException {
+        XMLStreamReader xml = newXmlInputFactory().createXMLStreamReader(workbook);
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) continue;
+                String name = xml.getLocalName();
+                if ("workbookPr".equals(name)) {
+                    String value = xml.getAttributeValue(null, "date1904");
+                    return "1".equals(value) || "true".equals(value);
+                }
+                if ("sheets".equals(name)) return false; // workbookPr always comes first
+            }
+            return false;
+        } finally {
+            xml.close();
+        }
+    }
+
+    // Workbooks are untrusted uploads: no DTDs, no external entities
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    // The shared strings table as UTF-8 in a memory-mapped temp file, with a second mapped file of
+    // start offsets, so nothing proportional to the number of strings stays on the heap
+    private static final class SharedStrings implements Closeable {
+        private static final long SEGMENT_BYTES = 1L << 30;
+        private static final SharedStrings NONE = new SharedStrings(null, null, 0, 0, new long[0], new MappedByteBuffer[0], null);
+
+        private final Path file;
+        private final Path indexFile;
+        private final int count;
+        private final long bytes;
+        private final long[] segmentStarts;
+        private final MappedByteBuffer[] segments;
+        private final LongBuffer offsets; // string i is offsets[i] .. offsets[i + 1]
+
+        private SharedStrings(Path file, Path indexFile, int count, long bytes, long[] segmentStarts,
+                              MappedByteBuffer[] segments, LongBuffer offsets) {
+            this.file = file;
+            this.indexFile = indexFile;
+            this.count = count;
+            this.bytes = bytes;
+            this.segmentStarts = segmentStarts;
+            this.segments = segments;
+            this.offsets = offsets;
+        }
+
+        static SharedStrings load(XSSFReader xssf) throws IOException, XMLStreamException {
+            InputStream data;
+            try {
+                data = xssf.getSharedStringsData();
+            } catch (InvalidFormatException e) {
+                data = null; // workbook without text cells
+            }
+            if (data == null) return NONE;
+
+            Path file = Files.createTempFile("xlsx-sst-", ".bin");
+            Path indexFile = Files.createTempFile("xlsx-sst-", ".idx");
+            try (InputStream in = data;
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+                 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 64 * 1024))) {
+                int count = 0;
+                long written = 0;
+                // A string never straddles two mappings: a new segment starts where one would overflow
+                List<Long> segmentStarts = new ArrayList<>(List.of(0L));
+
+                XMLStreamReader xml = newXmlInputFactory().createXMLStreamReader(in);
+                try {
+                    while (xml.hasNext()) {
+                        if (xml.next() != XMLStreamConstants.START_ELEMENT || !"si".equals(xml.getLocalName())) continue;
+                        byte[] utf8 = readRichText(xml, "si").getBytes(StandardCharsets.UTF_8);
+                        if (written - segmentStarts.get(segmentStarts.size() - 1) + utf8.length > SEGMENT_BYTES) {
+                            segmentStarts.add(written);
+                        }
+                        out.write(utf8);
+                        index.writeLong(written);
+                        written += utf8.length;
+                        count++;
+                    }
+                } finally {
+                    xml.close();
+                }
+                index.writeLong(written);
+                out.close();
+                index.close();
+                if ((count + 1L) * Long.BYTES > Integer.MAX_VALUE) {
+                    throw new IOException("Shared strings table too large: " + count + " strings");
+                }
+
+                MappedByteBuffer[] segments = new MappedByteBuffer[segmentStarts.size()];
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    for (int i = 0; i < segments.length; i++) {
+                        long start = segmentStarts.get(i);
+                        long end = i + 1 < segments.length ? segmentStarts.get(i + 1) : written;
+                        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    }
+                }
+                LongBuffer offsets;
+                try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                    offsets = channel.map(FileChannel.MapMode.READ_ONLY, 0, (count + 1L) * Long.BYTES).asLongBuffer();
+                }
+                return new SharedStrings(file, indexFile, count, written,
+                        segmentStarts.stream().mapToLong(Long::longValue).toArray(), segments, offsets);
+            } catch (IOException | XMLStreamException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(indexFile);
+                throw e;
+            }
+        }
+
+        int count() {
+            return count;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        // Absolute reads only, so concurrent sheet workers can share the mappings
+        String get(int index) {
+            if (index < 0 || index >= count) return "";
+            long start = offsets.get(index);
+            int length = (int) (offsets.get(index + 1) - start);
+            int segment = segments.length == 1 ? 0 : segmentOf(start);
+            byte[] utf8 = new byte[length];
+            segments[segment].get((int) (start - segmentStarts[segment]), utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        private int segmentOf(long offset) {
+            int i = Arrays.binarySearch(segmentStarts, offset);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        @Override
+        public void close() {
+            delete(file);
+            delete(indexFile);
+        }
+
+        private static void delete(Path path) {
+            if (path == null) return;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Windows keeps mapped files locked until the mapping is collected
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package com.example.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Single-sheet student workbook written straight as OOXML, without POI. The sheet XML is encoded by
+// hand into byte arrays and deflated into the output zip as rows arrive: no Row/Cell objects and
+// no temp file that is compressed once and then zipped again.
+// Strings found in the vocabulary given up front (names, classes, dates) become shared-string
+// references. The table is written before the sheet. Any other string is written inline.
+// The sheet is a run of CHUNK_ROWS-row chunks, each encoded and deflated on its own (ending on a
+// sync flush) and appended to one deflate stream, with the CRCs combined. Chunks can therefore be
+// encoded on any thread, and the file comes out the same byte for byte however many did the work.
+// Entry timestamps are fixed too. The writer is not thread-safe; its ChunkEncoders are independent.
+public final class StudentXlsxWriter implements Closeable {
+
+    public static final String SHEET_NAME = "Students";
+    // Excel's row limit, minus the header
+    public static final int MAX_ROWS = 1_048_575;
+    // Fixed, never derived from the thread count: chunk boundaries show in the deflated bytes
+    public static final int CHUNK_ROWS = 16_384;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String SHEET_PART = "xl/worksheets/sheet1.xml";
+
+    private static final byte[] ROW_START = ascii("<row r=\"");
+    private static final byte[] ROW_NUMBER_END = ascii("\">");
+    private static final byte[] ROW_END = ascii("</row>");
+    private static final byte[][] CELL_START = new byte[StudentXlsxReader.COLUMNS][];
+    private static final byte[] NUMBER_CELL = ascii("\"><v>");
+    private static final byte[] SHARED_CELL = ascii("\" t=\"s\"><v>");
+    private static final byte[] VALUE_END = ascii("</v></c>");
+    private static final byte[] INLINE_CELL = ascii("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+    private static final byte[] INLINE_END = ascii("</t></is></c>");
+    private static final byte[] AMP_LT = ascii("&lt;");
+    private static final byte[] AMP_GT = ascii("&gt;");
+    private static final byte[] AMP_AMP = ascii("&amp;");
+
+    static {
+        for (int i = 0; i < CELL_START.length; i++) {
+            CELL_START[i] = ascii("<c r=\"" + (char) ('A' + i));
+        }
+    }
+
+    private final ZipWriter zip;
+    private final int compressionLevel;
+    private final Map<String, Integer> sharedIndex;
+    private ChunkEncoder current;
+    private int rowsWritten;
+    private boolean sheetOpen;
+
+    // Writes the header row; sharedStrings is the vocabulary to reference by index, duplicates ignored
+    public StudentXlsxWriter(OutputStream out, List<String> sharedStrings, int compressionLevel) throws IOException {
+        this.zip = new ZipWriter(out);
+        this.compressionLevel = compressionLevel;
+        Map<String, Integer> index = new HashMap<>();
+        for (String header : DataProcessingService.CSV_HEADER) {
+            index.putIfAbsent(header, index.size());
+        }
+        for (String s : sharedStrings) {
+            index.putIfAbsent(s, index.size());
+        }
+        this.sharedIndex = Map.copyOf(index);
+        writePackageParts();
+        writeSharedStrings();
+
+        XmlBuffer prelude = new XmlBuffer(1024);
+        prelude.raw(ascii(XML_DECLARATION
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"));
+        prelude.startRow(1);
+        for (int column = 0; column < DataProcessingService.CSV_HEADER.length; column++) {
+            prelude.text(column, 1, DataProcessingService.CSV_HEADER[column], sharedIndex);
+        }
+        prelude.raw(ROW_END);
+        zip.beginEntry(SHEET_PART);
+        sheetOpen = true;
+        zip.write(prelude.deflate(compressionLevel, false));
+    }
+
+    public static StudentXlsxWriter open(Path file, List<String> sharedStrings, int compressionLevel) throws IOException {
+        return new StudentXlsxWriter(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE),
+                sharedStrings, compressionLevel);
+    }
+
+    // Encodes the chunk whose first data row is firstRow (0-based, a multiple of CHUNK_ROWS); may run on any thread
+    public ChunkEncoder chunkEncoder(int firstRow) {
+        return new ChunkEncoder(firstRow, sharedIndex, compressionLevel);
+    }
+
+    // Chunks go in row order, each starting where the previous one ended
+    public void writeChunk(Chunk chunk) throws IOException {
+        if (current != null) {
+            throw new IllegalStateException("writeRow and writeChunk cannot be mixed within a chunk");
+        }
+        if (chunk.firstRow != rowsWritten) {
+            throw new IllegalStateException("Chunk starts at row " + chunk.firstRow + ", expected " + rowsWritten);
+        }
+        zip.write(chunk.segment);
+        rowsWritten += chunk.rows;
+    }
+
+    // One row at a time on the calling thread, cut into the same chunks a ChunkEncoder would make
+    public void writeRow(long studentId, String firstName, String lastName, String dob, String className, int score)
+            throws IOException {
+        if (getRowCount() >= MAX_ROWS) {
+            throw new IOException("A sheet holds at most " + MAX_ROWS + " students");
+        }
+        if (current == null) {
+            current = chunkEncoder(rowsWritten);
+        }
+        current.writeRow(studentId, firstName, lastName, dob, className, score);
+        if (current.rows == CHUNK_ROWS) {
+            flushCurrent();
+        }
+    }
+
+    // Pushes everything written so far to the underlying stream, e.g. so a streamed download starts
+    // before the first rows are ready
+    public void flush() throws IOException {
+        zip.flush();
+    }
+
+    // Data rows written so far
+    public int getRowCount() {
+        return rowsWritten + (current != null ? current.rows : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sheetOpen) {
+                if (current != null) flushCurrent();
+                XmlBuffer end = new XmlBuffer(64);
+                end.raw(ascii("</sheetData></worksheet>"));
+                zip.write(end.deflate(compressionLevel, true));
+                zip.endEntry();
+                sheetOpen = false;
+            }
+            zip.finish();
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void flushCurrent() throws IOException {
+        Chunk chunk = current.finish();
+        current = null;
+        writeChunk(chunk);
+    }
+
+    // Up to CHUNK_ROWS consecutive rows of sheet XML, deflated and ready to append
+    public static final class Chunk {
+        private final int firstRow;
+        private final int rows;
+        private final Segment segment;
+
+        private Chunk(int firstRow, int rows, Segment segment) {
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.segment = segment;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+    }
+
+    // Not thread-safe itself, but shares nothing with the writer or other encoders
+    public static final class ChunkEncoder {
+        private final int firstRow;
+        private final Map<String, Integer> sharedIndex;
+        private final int compressionLevel;
+        private final XmlBuffer xml = new XmlBuffer(BUFFER_SIZE);
+        private int rows;
+
+        private ChunkEncoder(int firstRow, Map<String, Integer> sharedIndex, int compressionLevel) {
+            this.firstRow = firstRow;
+            this.sharedIndex = sharedIndex;
+            this.compressionLevel = compressionLevel;
+        }
+
+        public void writeRow(long studentId, String firstName, String lastName, String dob, String className, int score) {
+            if (rows == CHUNK_ROWS || firstRow + rows >= MAX_ROWS) {
+                throw new IllegalStateException("Chunk starting at row " + firstRow + " is full");
+            }
+            // Row 1 is the header
+            int rowNum = firstRow + ++rows + 1;
+            xml.startRow(rowNum);
+            xml.number(0, rowNum, studentId);
+            xml.text(1, rowNum, firstName, sharedIndex);
+            xml.text(2, rowNum, lastName, sharedIndex);
+            xml.text(3, rowNum, dob, sharedIndex);
+            xml.text(4, rowNum, className, sharedIndex);
+            xml.number(5, rowNum, score);
+            xml.raw(ROW_END);
+        }
+
+        public Chunk finish() {
+            return new Chunk(firstRow, rows, xml.deflate(compressionLevel, false));
+        }
+    }
+
+    // Raw deflate data, with the CRC and length of the bytes it came from
+    private record Segment(byte[] data, int length, int crc, long uncompressedLength) {}
+
+    // Growable buffer of sheet XML bytes
+    private static final class XmlBuffer {
+        private final byte[] digits = new byte[20];
+        private byte[] bytes;
+        private int position;
+
+        XmlBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void startRow(int rowNum) {
+            raw(ROW_START);
+            digits(rowNum);
+            raw(ROW_NUMBER_END);
+        }
+
+        void number(int column, int rowNum, long value) {
+            raw(CELL_START[column]);
+            digits(rowNum);
+            raw(NUMBER_CELL);
+            digits(value);
+            raw(VALUE_END);
+        }
+
+        // null is a missing cell, like an empty field in the CSV
+        void text(int column, int rowNum, String value, Map<String, Integer> sharedIndex) {
+            if (value == null) return;
+            Integer index = sharedIndex.get(value);
+            raw(CELL_START[column]);
+            digits(rowNum);
+            if (index != null) {
+                raw(SHARED_CELL);
+                digits(index);
+                raw(VALUE_END);
+            } else {
+                raw(INLINE_CELL);
+                escaped(value);
+                raw(INLINE_END);
+            }
+        }
+
+        void digits(long value) {
+            boolean negative = value < 0;
+            if (!negative) value = -value;
+            int pos = digits.length;
+            do {
+                digits[--pos] = (byte) ('0' - value % 10);
+                value /= 10;
+            } while (value != 0);
+            if (negative) digits[--pos] = '-';
+            ensureRoom(digits.length - pos);
+            System.arraycopy(digits, pos, bytes, position, digits.length - pos);
+            position += digits.length - pos;
+        }
+
+        void raw(byte[] b) {
+            ensureRoom(b.length);
+            System.arraycopy(b, 0, bytes, position, b.length);
+            position += b.length;
+        }
+
+        // UTF-8 with the XML specials escaped; characters XML 1.0 cannot carry at all are dropped
+        void escaped(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                ensureRoom(6);
+                if (c < 0x80) {
+                    switch (c) {
+                        case '<' -> raw(AMP_LT);
+                        case '>' -> raw(AMP_GT);
+                        case '&' -> raw(AMP_AMP);
+                        default -> {
+                            if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') bytes[position++] = (byte) c;
+                        }
+                    }
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (!Character.isSurrogate(c) && c < 0xFFFE) {
+                    bytes[position++] = (byte) (0xE0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        // last ends the deflate stream; otherwise a sync flush ends on a byte boundary so the next
+        // segment can simply follow
+        Segment deflate(int level, boolean last) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, position);
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(bytes, 0, position);
+                if (last) deflater.finish();
+                byte[] out = new byte[Math.max(position / 3, 256)];
+                int length = 0;
+                while (true) {
+                    length += deflater.deflate(out, length, out.length - length,
+                            last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                    // A flush is complete once it leaves room in the output
+                    if (last ? deflater.finished() : length < out.length) break;
+                    if (length == out.length) out = Arrays.copyOf(out, out.length * 2);
+                }
+                return new Segment(out, length, (int) crc.getValue(), position);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void ensureRoom(int n) {
+            if (bytes.length - position < n) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + n));
+            }
+        }
+    }
+
+    private void part(String name, String xml) throws IOException {
+        XmlBuffer buffer = new XmlBuffer(xml.length() * 2);
+        buffer.raw((XML_DECLARATION + xml).getBytes(StandardCharsets.UTF_8));
+        zip.beginEntry(name);
+        zip.write(buffer.deflate(compressionLevel, true));
+        zip.endEntry();
+    }
+
+    private void writePackageParts() throws IOException {
+        part("[Content_Types].xml",
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                        + "<Override PartName=\"/" + SHEET_PART + "\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+                        + "<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>"
+                        + "</Types>");
+        part("_rels/.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                        + "</Relationships>");
+        part("xl/workbook.xml",
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                        + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                        + "<sheets><sheet name=\"" + SHEET_NAME + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+        part("xl/_rels/workbook.xml.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                        + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+                        + "<Relationship Id=\"rId3\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings\" Target=\"sharedStrings.xml\"/>"
+                        + "</Relationships>");
+        // The minimum Excel accepts: one font, the two reserved fills, one border, one cell format
+        part("xl/styles.xml",
+                "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                        + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                        + "<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>"
+                        + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                        + "</styleSheet>");
+    }
+
+    // Indexes follow insertion order; the header comes first
+    private void writeSharedStrings() throws IOException {
+        String[] strings = new String[sharedIndex.size()];
+        sharedIndex.forEach((s, i) -> strings[i] = s);
+        XmlBuffer xml = new XmlBuffer(4096);
+        xml.raw(ascii(XML_DECLARATION
+                + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" uniqueCount=\"" + strings.length + "\">"));
+        for (String s : strings) {
+            xml.raw(ascii("<si><t xml:space=\"preserve\">"));
+            xml.escaped(s);
+            xml.raw(ascii("</t></si>"));
+        }
+        xml.raw(ascii("</sst>"));
+        zip.beginEntry("xl/sharedStrings.xml");
+        zip.write(xml.deflate(compressionLevel, true));
+        zip.endEntry();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Just enough of the zip format for a package streamed front to back: deflated entries whose CRC
+    // and sizes follow the data in a descriptor, since the sheet's are only known at its end.
+    // ZipOutputStream cannot take data that is already deflated. Timestamps are fixed at 1980-01-01
+    // local time, so no clock or time zone leaks into the bytes. No zip64: a full sheet of students
+    // stays far below 4 GB
+    private static final class ZipWriter implements Closeable {
+        private static final int DOS_DATE_1980_01_01 = (1 << 5) | 1;
+        // bit 3: CRC and sizes in a data descriptor; bit 11: UTF-8 names
+        private static final int FLAGS = 0x0808;
+        private static final int DEFLATED = 8;
+        private static final int VERSION = 20;
+
+        private final OutputStream out;
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+        private final byte[] header = new byte[46];
+        private int entries;
+        private long offset;
+        private byte[] entryName;
+        private long entryOffset;
+        private int entryCrc;
+        private long entryCompressed;
+        private long entryUncompressed;
+
+        ZipWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void beginEntry(String name) throws IOException {
+            entryName = name.getBytes(StandardCharsets.UTF_8);
+            entryOffset = offset;
+            entryCrc = 0;
+            entryCompressed = 0;
+            entryUncompressed = 0;
+            int p = int32(0, 0x04034b50);
+            p = int16(p, VERSION);
+            p = int16(p, FLAGS);
+            p = int16(p, DEFLATED);
+            p = int16(p, 0);
+            p = int16(p, DOS_DATE_1980_01_01);
+            p = int32(p, 0);
+            p = int32(p, 0);
+            p = int32(p, 0);
+            p = int16(p, entryName.length);
+            p = int16(p, 0);
+            write(header, p);
+            write(entryName, entryName.length);
+        }
+
+        void write(Segment segment) throws IOException {
+            write(segment.data(), segment.length());
+            entryCrc = crc32Combine(entryCrc, segment.crc(), segment.uncompressedLength());
+            entryCompressed += segment.length();
+            entryUncompressed += segment.uncompressedLength();
+        }
+
+        void endEntry() throws IOException {
+            if (entryCompressed > 0xFFFFFFFFL || entryUncompressed > 0xFFFFFFFFL || offset > 0xFFFFFFFFL) {
+                throw new IOException("Workbook too large for a zip without zip64");
+            }
+            int p = int32(0, 0x08074b50);
+            p = int32(p, entryCrc);
+            p = int32(p, (int) entryCompressed);
+            p = int32(p, (int) entryUncompressed);
+            write(header, p);
+
+            p = int32(0, 0x02014b50);
+            p = int16(p, VERSION);
+            p = int16(p, VERSION);
+            p = int16(p, FLAGS);
+            p = int16(p, DEFLATED);
+            p = int16(p, 0);
+            p = int16(p, DOS_DATE_1980_01_01);
+            p = int32(p, entryCrc);
+            p = int32(p, (int) entryCompressed);
+            p = int32(p, (int) entryUncompressed);
+            p = int16(p, entryName.length);
+            p = int16(p, 0); // extra field
+            p = int16(p, 0); // comment
+            p = int16(p, 0); // disk
+            p = int16(p, 0); // internal attributes
+            p = int32(p, 0); // external attributes
+            p = int32(p, (int) entryOffset);
+            centralDirectory.write(header, 0, p);
+            centralDirectory.write(entryName);
+            entries++;
+        }
+
+        void finish() throws IOException {
+            long directoryOffset = offset;
+            byte[] directory = centralDirectory.toByteArray();
+            write(directory, directory.length);
+            int p = int32(0, 0x06054b50);
+            p = int16(p, 0);
+            p = int16(p, 0);
+            p = int16(p, entries);
+            p = int16(p, entries);
+            p = int32(p, directory.length);
+            p = int32(p, (int) directoryOffset);
+            p = int16(p, 0);
+            write(header, p);
+            out.flush();
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void write(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+            offset += length;
+        }
+
+        private int int16(int p, int value) {
+            header[p] = (byte) value;
+            header[p + 1] = (byte) (value >>> 8);
+            return p + 2;
+        }
+
+        private int int32(int p, int value) {
+            header[p] = (byte) value;
+            header[p + 1] = (byte) (value >>> 8);
+            header[p + 2] = (byte) (value >>> 16);
+            header[p + 3] = (byte) (value >>> 24);
+            return p + 4;
+        }
+
+        // zlib's crc32_combine: the CRC of A followed by B, from crc(A), crc(B) and B's length. Feeding
+        // length(B) zero bytes through the CRC is a linear map, applied as squared GF(2) matrices
+        private static int crc32Combine(int crc1, int crc2, long length2) {
+            if (length2 <= 0) return crc1;
+            int[] even = new int[32];
+            int[] odd = new int[32];
+            odd[0] = 0xedb88320; // the reflected CRC-32 polynomial: one zero bit
+            int row = 1;
+            for (int n = 1; n < 32; n++) {
+                odd[n] = row;
+                row <<= 1;
+            }
+            gf2MatrixSquare(even, odd); // two zero bits
+            gf2MatrixSquare(odd, even); // four zero bits
+            do {
+                gf2MatrixSquare(even, odd);
+                if ((length2 & 1) != 0) crc1 = gf2MatrixTimes(even, crc1);
+                length2 >>>= 1;
+                if (length2 == 0) break;
+                gf2MatrixSquare(odd, even);
+                if ((length2 & 1) != 0) crc1 = gf2MatrixTimes(odd, crc1);
+                length2 >>>= 1;
+            } while (length2 != 0);
+            return crc1 ^ crc2;
+        }
+
+        private static int gf2MatrixTimes(int[] matrix, int vector) {
+            int sum = 0;
+            for (int i = 0; vector != 0; i++, vector >>>= 1) {
+                if ((vector & 1) != 0) sum ^= matrix[i];
+            }
+            return sum;
+        }
+
+        private static void gf2MatrixSquare(int[] square, int[] matrix) {
+            for (int n = 0; n < 32; n++) {
+                square[n] = gf2MatrixTimes(matrix, matrix[n]);
+            }
+        }
+    }
+}
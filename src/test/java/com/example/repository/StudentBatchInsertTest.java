@@ -0,0 +1,115 @@
+package com.example.repository;
+
+import com.example.entity.Student;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One 5000-row upload batch against H2 with Hibernate statistics on, before and after the id change.
+// With IDENTITY ids (the old mapping, kept here as IdentityStudent) Hibernate disables insert batching
+// and prepares one INSERT per row, 5000 statements for this batch. The pooled-lo sequence keeps
+// batching on: a nextval per 1000 ids, and one INSERT statement that is prepared once and executed
+// as a JDBC batch per 1000 rows
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class StudentBatchInsertTest {
+
+    private static final int BATCH_ROWS = 5000;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void savingABatchPreparesOneInsertStatement() {
+        List<Student> batch = new ArrayList<>();
+        for (int i = 1; i <= BATCH_ROWS; i++) {
+            batch.add(new Student(null, "First" + i, "Last" + i, LocalDate.of(2000, 1, 1), "Class1", 70));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        studentRepository.saveAllAndFlush(batch);
+        entityManager.clear();
+
+        int blocks = BATCH_ROWS / Student.ID_ALLOCATION_SIZE;
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(BATCH_ROWS);
+        // blocks sequence calls + the batched INSERT, against BATCH_ROWS single-row INSERTs before
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(blocks + 1L);
+        assertThat(studentRepository.count()).isEqualTo(BATCH_ROWS);
+    }
+
+    @Test
+    void savingABatchWithIdentityIdsPreparesOneInsertPerRow() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 1; i <= BATCH_ROWS; i++) {
+            entityManager.persist(new IdentityStudent("First" + i, "Last" + i, LocalDate.of(2000, 1, 1), "Class1", 70));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(BATCH_ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(BATCH_ROWS);
+    }
+
+    // Student as it was mapped before the sequence, in a table of its own
+    @Entity
+    @Table(name = "identity_students")
+    static class IdentityStudent {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @Column(name = "studentId")
+        private Long studentId;
+
+        @Column(name = "firstName", nullable = false, length = 50)
+        private String firstName;
+
+        @Column(name = "lastName", nullable = false, length = 50)
+        private String lastName;
+
+        @Column(name = "DOB", nullable = false)
+        private LocalDate dob;
+
+        @Column(name = "class", nullable = false, length = 20)
+        private String className;
+
+        @Column(name = "score", nullable = false)
+        private Integer score;
+
+        protected IdentityStudent() {}
+
+        IdentityStudent(String firstName, String lastName, LocalDate dob, String className, Integer score) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.dob = dob;
+            this.className = className;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+// Synthetic inputs shared by the *Benchmark classes, drawn from the generator's own value pools.
+// Seeded, so every fork measures the same data
+final class BenchmarkData {
+
+    static final String[] HEADER = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+
+    private BenchmarkData() {}
+
+    static String firstName(SplittableRandom random) {
+        return DataGenerationService.FIRST_NAMES[random.nextInt(DataGenerationService.FIRST_NAMES.length)];
+    }
+
+    static String lastName(SplittableRandom random) {
+        return DataGenerationService.LAST_NAMES[random.nextInt(DataGenerationService.LAST_NAMES.length)];
+    }
+
+    static String className(SplittableRandom random) {
+        return DataGenerationService.CLASSES[random.nextInt(DataGenerationService.CLASSES.length)];
+    }
+
+    static String date(SplittableRandom random) {
+        return (2000 + random.nextInt(10)) + "-" + String.format("%02d", 1 + random.nextInt(12))
+                + "-" + String.format("%02d", 1 + random.nextInt(28));
+    }
+
+    // Student CSV with every field quoted the way opencsv writes it, 6 columns
+    static byte[] studentCsv(int rows) {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder sb = new StringBuilder(rows * 64);
+        sb.append("\"studentId\",\"firstName\",\"lastName\",\"DOB\",\"class\",\"score\"\n");
+        for (int i = 1; i <= rows; i++) {
+            sb.append('"').append(i).append("\",\"")
+              .append(firstName(random)).append("\",\"")
+              .append(lastName(random)).append("\",\"")
+              .append(date(random)).append("\",\"")
+              .append(className(random)).append("\",\"")
+              .append(65 + random.nextInt(21)).append("\"\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Streams rows to disk with a shared-strings table, like Excel saves them. Names are nearly all
+    // distinct, the case that inflates the shared-strings table
+    static void writeStudentWorkbook(Path file, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(null, 100, true, true)) {
+            Sheet sheet = workbook.createSheet("Students");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADER.length; i++) {
+                header.createCell(i).setCellValue(HEADER[i]);
+            }
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(firstName(random) + i);
+                row.createCell(2).setCellValue(lastName(random) + random.nextInt(rows));
+                row.createCell(3).setCellValue(date(random));
+                row.createCell(4).setCellValue(className(random));
+                row.createCell(5).setCellValue(55 + random.nextInt(21));
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            workbook.dispose();
+        }
+    }
+}
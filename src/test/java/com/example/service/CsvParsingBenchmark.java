@@ -0,0 +1,68 @@
+package com.example.service;
+
+import com.example.entity.Student;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// opencsv CSVReader + String[] mapping vs StudentCsvTokenizer on the same in-memory CSV
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param("1000000")
+    int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        csv = BenchmarkData.studentCsv(rows);
+    }
+
+    @Benchmark
+    public long opencsv() throws Exception {
+        long checksum = 0;
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            reader.readNext();
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                Student student = StudentCsvMapper.toStudent(line);
+                checksum += student.getScore();
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long tokenizer() throws Exception {
+        long checksum = 0;
+        try (InputStreamReader in = new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8)) {
+            StudentCsvTokenizer line = new StudentCsvTokenizer(in);
+            line.next();
+            while (line.next()) {
+                Student student = StudentCsvMapper.toStudent(line);
+                checksum += student.getScore();
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.service;
+
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The CSV writers excel-to-csv and the report exports used before (opencsv over a BufferedWriter,
+// String.format into a FileWriter) vs CsvByteWriter, each writing the same rows to a temp file.
+// Rows come from a fixed pool, so the harness itself allocates nothing per row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CsvWritingBenchmark {
+
+    @Param("1000000")
+    int rows;
+
+    private final String[][] pool = new String[4096][];
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new String[]{
+                    String.valueOf(1 + random.nextInt(rows)),
+                    BenchmarkData.firstName(random),
+                    BenchmarkData.lastName(random),
+                    BenchmarkData.date(random),
+                    BenchmarkData.className(random),
+                    String.valueOf(65 + random.nextInt(21))};
+        }
+        file = Files.createTempFile("benchmark-", ".csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int opencsvWriter() throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(file);
+             CSVWriter writer = new CSVWriter(bw)) {
+            writer.writeNext(BenchmarkData.HEADER);
+            for (int i = 0; i < rows; i++) {
+                writer.writeNext(pool[i & (pool.length - 1)]);
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public int formatWriter() throws IOException {
+        try (FileWriter writer = new FileWriter(file.toFile())) {
+            writer.write(String.join(",", BenchmarkData.HEADER) + "\n");
+            for (int i = 0; i < rows; i++) {
+                String[] row = pool[i & (pool.length - 1)];
+                writer.write(String.format("%s,%s,%s,%s,%s,%s\n", (Object[]) row));
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public int csvByteWriter() throws IOException {
+        try (CsvByteWriter writer = CsvByteWriter.open(file)) {
+            writer.writeRow(BenchmarkData.HEADER);
+            for (int i = 0; i < rows; i++) {
+                writer.writeRow(pool[i & (pool.length - 1)]);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Student workbook generation: the two SXSSF paths DataGenerationService used (10-row window with
+// gzip-compressed temp files, 50-row window with plain ones) vs StudentXlsxWriter on one thread and
+// on a pool of -p threads (0 = one per core). Setup checks that both StudentXlsxWriter runs produce
+// the same file byte for byte
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExcelGenerationBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param("1000000")
+    int rows;
+
+    @Param("0")
+    int threads;
+
+    private ForkJoinPool pool;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        file = Files.createTempFile("benchmark-", ".xlsx");
+        Path parallelFile = Files.createTempFile("benchmark-", ".xlsx");
+        try {
+            ooxmlWriter();
+            DataGenerationService.writeStudentWorkbook(parallelFile, rows, SEED, StudentRecordGenerator.DEFAULT, pool);
+            if (Files.mismatch(file, parallelFile) != -1) {
+                throw new IllegalStateException("Parallel workbook differs from the single-threaded one");
+            }
+        } finally {
+            Files.deleteIfExists(parallelFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int sxssfCompressedTemp() throws IOException {
+        return writeSxssfStudents(10, true);
+    }
+
+    @Benchmark
+    public int sxssf() throws IOException {
+        return writeSxssfStudents(50, false);
+    }
+
+    @Benchmark
+    public int ooxmlWriter() throws IOException {
+        DataGenerationService.writeStudentWorkbook(file, rows, SEED, StudentRecordGenerator.DEFAULT, null);
+        return rows;
+    }
+
+    @Benchmark
+    public int ooxmlWriterParallel() throws IOException {
+        DataGenerationService.writeStudentWorkbook(file, rows, SEED, StudentRecordGenerator.DEFAULT, pool);
+        return rows;
+    }
+
+    private int writeSxssfStudents(int window, boolean compressTempFiles) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(window)) {
+            workbook.setCompressTempFiles(compressTempFiles);
+            Sheet sheet = workbook.createSheet("Students");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < BenchmarkData.HEADER.length; i++) {
+                header.createCell(i).setCellValue(BenchmarkData.HEADER[i]);
+            }
+            String[] dates = DataGenerationService.DATE_PATTERNS;
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(BenchmarkData.firstName(random));
+                row.createCell(2).setCellValue(BenchmarkData.lastName(random));
+                row.createCell(3).setCellValue(dates[random.nextInt(dates.length)]);
+                row.createCell(4).setCellValue(BenchmarkData.className(random));
+                row.createCell(5).setCellValue(55 + random.nextInt(21));
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 65536)) {
+                workbook.write(out);
+            }
+            workbook.dispose();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The same student rows as CSV (CsvByteWriter) and as Parquet (StudentParquetWriter). Ids are unique
+// and the other columns repeat like real extracts do. The file size is printed at the end of each run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ParquetOutputBenchmark {
+
+    @Param("1000000")
+    int rows;
+
+    private final LocalDate[] dates = new LocalDate[3650];
+    private final String[] dateStrings = new String[dates.length];
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2000, 1, 1).plusDays(i);
+            dateStrings[i] = dates[i].toString();
+        }
+        file = Files.createTempFile("benchmark-", ".out");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.println("fileBytes: " + Files.size(file));
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int csv() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (CsvByteWriter writer = CsvByteWriter.open(file)) {
+            writer.writeRow(BenchmarkData.HEADER);
+            for (int i = 1; i <= rows; i++) {
+                writer.field(i)
+                        .field(BenchmarkData.firstName(random))
+                        .field(BenchmarkData.lastName(random))
+                        .field(dateStrings[random.nextInt(dates.length)])
+                        .field(BenchmarkData.className(random))
+                        .field(65 + random.nextInt(21))
+                        .endRow();
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public int parquet() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (StudentParquetWriter writer = StudentParquetWriter.open(file)) {
+            for (int i = 1; i <= rows; i++) {
+                writer.write((long) i,
+                        BenchmarkData.firstName(random),
+                        BenchmarkData.lastName(random),
+                        dates[random.nextInt(dates.length)],
+                        BenchmarkData.className(random),
+                        65 + random.nextInt(21));
+            }
+        }
+        return rows;
+    }
+}
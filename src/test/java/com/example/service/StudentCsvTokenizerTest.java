@@ -0,0 +1,157 @@
+package com.example.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Pins the CSV dialect every upload mode reads: RFC 4180 quoting, LF or CRLF line ends, and
+// backslash as an ordinary character (opencsv, which the uploads used before, treats it as an
+// escape). Records are read both with next() and through readBlock plus the block tokenizer,
+// the path the ingest pipeline's parser workers take, and both must agree.
+class StudentCsvTokenizerTest {
+
+    @Test
+    void quotedFieldsMayHoldCommas() throws IOException {
+        assertThat(records("1,\"Smith, Jr\",Lee\n"))
+                .containsExactly(List.of("1", "Smith, Jr", "Lee"));
+    }
+
+    @Test
+    void doubledQuotesAreOneQuote() throws IOException {
+        assertThat(records("1,\"say \"\"hi\"\"\",\"\"\"\"\n"))
+                .containsExactly(List.of("1", "say \"hi\"", "\""));
+    }
+
+    @Test
+    void quotedFieldsMayHoldLineBreaks() throws IOException {
+        assertThat(records("1,\"two\nlines\",a\r\n2,\"crlf\r\ninside\",b\r\n3,c,d"))
+                .containsExactly(
+                        List.of("1", "two\nlines", "a"),
+                        List.of("2", "crlf\r\ninside", "b"),
+                        List.of("3", "c", "d"));
+    }
+
+    @Test
+    void crlfLineEndsAreStripped() throws IOException {
+        assertThat(records("a,b\r\n\"c\",d\r\ne,\r\n"))
+                .containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e", ""));
+    }
+
+    @Test
+    void trailingSeparatorGivesAnEmptyField() throws IOException {
+        assertThat(records("1,a,\n2,,\n3,\"\",x\n"))
+                .containsExactly(List.of("1", "a", ""), List.of("2", "", ""), List.of("3", "", "x"));
+    }
+
+    // Short rows keep the fields they have; the loaders reject them as insufficient_columns
+    @Test
+    void shortAndEmptyRowsKeepTheirFieldCount() throws IOException {
+        StudentCsvTokenizer tokenizer = new StudentCsvTokenizer(new StringReader("1,Ann\n\n3\n4,a,b,c,d,e"));
+        List<Integer> counts = new ArrayList<>();
+        while (tokenizer.next()) {
+            counts.add(tokenizer.fieldCount());
+        }
+        assertThat(counts).containsExactly(2, 1, 1, 6);
+        assertThat(tokenizer.recordNumber()).isEqualTo(4);
+    }
+
+    @Test
+    void backslashIsAnOrdinaryCharacter() throws IOException {
+        String csv = "1,C:\\dir\\x,O\\'Brien\n2,a\\\\b,a\\,b\n";
+        assertThat(records(csv)).containsExactly(
+                List.of("1", "C:\\dir\\x", "O\\'Brien"),
+                List.of("2", "a\\\\b", "a\\", "b"));
+        // what the same lines gave under opencsv's default parser
+        assertThat(opencsv(csv)).containsExactly(
+                List.of("1", "C:dirx", "O'Brien"),
+                List.of("2", "a\\b", "a,b"));
+    }
+
+    // A backslash-escaped quote closes the field; the rest of it is dropped, but the following
+    // lines are still read as their own records
+    @Test
+    void backslashEscapedQuoteEndsTheQuotedField() throws IOException {
+        assertThat(records("1,\"a\\\"b\",c\n2,x,y\n"))
+                .containsExactly(List.of("1", "a\\", "c"), List.of("2", "x", "y"));
+    }
+
+    @Test
+    void quoteInsideAnUnquotedFieldIsText() throws IOException {
+        assertThat(records("1,6\" ruler,x\n2,a,b\n"))
+                .containsExactly(List.of("1", "6\" ruler", "x"), List.of("2", "a", "b"));
+    }
+
+    // Dialect features both parsers share give the same fields
+    @Test
+    void agreesWithOpencsvWithoutBackslashes() throws IOException {
+        String csv = "studentId,firstName,lastName,DOB,class,score\r\n"
+                + "1,\"Smith, Jr\",\"O\"\"Neil\",2004-03-15,Class1,80\r\n"
+                + "2,\"multi\nline\",Lee,,Class2,\r\n"
+                + "3,Ann\r\n";
+        assertThat(records(csv)).isEqualTo(opencsv(csv));
+    }
+
+    // Records longer than the 64K read buffer make it grow instead of being split
+    @Test
+    void recordsLongerThanTheBufferStayWhole() throws IOException {
+        String longName = "x".repeat(200_000);
+        String quoted = "line\n".repeat(20_000);
+        assertThat(records("1," + longName + ",a\n2,\"" + quoted + "\",b\n3,c,d\n"))
+                .containsExactly(List.of("1", longName, "a"), List.of("2", quoted, "b"), List.of("3", "c", "d"));
+    }
+
+    @Test
+    void parsesNumbersAndDatesInPlace() throws IOException {
+        StudentCsvTokenizer tokenizer = new StudentCsvTokenizer(new StringReader("-42,2004-02-31,9223372036854775807"));
+        assertThat(tokenizer.next()).isTrue();
+        assertThat(tokenizer.parseInt(0)).isEqualTo(-42);
+        assertThat(tokenizer.parseIsoDate(1)).hasToString("2004-02-29");
+        assertThat(tokenizer.parseLong(2)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    // Reads every record both ways and checks they agree
+    private static List<List<String>> records(String csv) throws IOException {
+        List<List<String>> direct = new ArrayList<>();
+        StudentCsvTokenizer tokenizer = new StudentCsvTokenizer(new StringReader(csv));
+        while (tokenizer.next()) {
+            direct.add(List.of(tokenizer.fields()));
+        }
+
+        List<List<String>> blocks = new ArrayList<>();
+        StudentCsvTokenizer reader = new StudentCsvTokenizer(new StringReader(csv));
+        StudentCsvTokenizer.StringCache cache = new StudentCsvTokenizer.StringCache();
+        StudentCsvTokenizer.Block block;
+        while ((block = reader.readBlock(2)) != null) {
+            StudentCsvTokenizer line = new StudentCsvTokenizer(block.chars(), block.length(), cache);
+            int records = 0;
+            while (line.next()) {
+                blocks.add(List.of(line.fields()));
+                records++;
+            }
+            assertThat(records).isEqualTo(block.records());
+        }
+
+        assertThat(blocks).isEqualTo(direct);
+        return direct;
+    }
+
+    private static List<List<String>> opencsv(String csv) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                rows.add(List.of(row));
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException(e);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.service;
+
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writes student rows with StudentParquetWriter and reads them back with parquet-hadoop, the
+// reference reader, both for a single file and for files combined by merge. A one-byte row group
+// limit makes the writer flush every 1000 rows, so the files hold several row groups each. Both
+// writer versions are covered, v1 (what the application writes) and v2 data pages
+class StudentParquetWriterTest {
+
+    private record StudentRow(Long studentId, String firstName, String lastName, LocalDate dob,
+                              String className, Integer score) {}
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(WriterVersion.class)
+    void writtenFileReadsBack(WriterVersion version) throws IOException {
+        List<StudentRow> rows = rows(1, 2500);
+        Path file = write(dir.resolve("students.parquet"), rows, version);
+
+        assertThat(rowGroupCount(file)).isEqualTo(3);
+        assertThat(read(file)).containsExactlyElementsOf(rows);
+    }
+
+    @ParameterizedTest
+    @EnumSource(WriterVersion.class)
+    void mergedFileReadsBack(WriterVersion version) throws IOException {
+        List<StudentRow> first = rows(1, 2500);
+        List<StudentRow> second = rows(2501, 3);
+        Path firstFile = write(dir.resolve("sheet-1.parquet"), first, version);
+        Path secondFile = write(dir.resolve("sheet-2.parquet"), second, version);
+        Path merged = dir.resolve("merged.parquet");
+
+        StudentParquetWriter.merge(merged, List.of(firstFile, secondFile));
+
+        List<StudentRow> expected = new ArrayList<>(first);
+        expected.addAll(second);
+        assertThat(rowGroupCount(merged)).isEqualTo(4);
+        assertThat(read(merged)).containsExactlyElementsOf(expected);
+    }
+
+    // Repetitive names and classes so dictionaries are used, distinct last names so that column
+    // falls back to plain, and a null id, DOB or score every few rows
+    private static List<StudentRow> rows(int firstId, int count) {
+        List<StudentRow> rows = new ArrayList<>();
+        for (int i = firstId; i < firstId + count; i++) {
+            rows.add(new StudentRow(
+                    i % 7 == 0 ? null : (long) i,
+                    "First" + i % 50,
+                    "Last" + i,
+                    i % 11 == 0 ? null : LocalDate.of(2000, 1, 1).plusDays(i),
+                    "Class" + i % 5,
+                    i % 13 == 0 ? null : 55 + i % 31));
+        }
+        return rows;
+    }
+
+    private static Path write(Path file, List<StudentRow> rows, WriterVersion version) throws IOException {
+        try (StudentParquetWriter writer = new StudentParquetWriter(new BufferedOutputStream(Files.newOutputStream(file)), 1,
+                StudentParquetWriter.properties(version))) {
+            for (StudentRow row : rows) {
+                writer.write(row.studentId(), row.firstName(), row.lastName(), row.dob(), row.className(), row.score());
+            }
+        }
+        return file;
+    }
+
+    private static int rowGroupCount(Path file) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(file))) {
+            return reader.getRowGroups().size();
+        }
+    }
+
+    private static List<StudentRow> read(Path file) throws IOException {
+        List<StudentRow> rows = new ArrayList<>();
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(file))) {
+            MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+            assertThat(schema).isEqualTo(StudentParquetWriter.SCHEMA);
+            PageReadStore rowGroup;
+            while ((rowGroup = reader.readNextRowGroup()) != null) {
+                RecordReader<Group> records = new ColumnIOFactory().getColumnIO(schema)
+                        .getRecordReader(rowGroup, new GroupRecordConverter(schema));
+                for (long i = 0; i < rowGroup.getRowCount(); i++) {
+                    Group g = records.read();
+                    rows.add(new StudentRow(
+                            g.getFieldRepetitionCount("student_id") == 0 ? null : g.getLong("student_id", 0),
+                            g.getString("first_name", 0),
+                            g.getString("last_name", 0),
+                            g.getFieldRepetitionCount("dob") == 0 ? null : LocalDate.ofEpochDay(g.getInteger("dob", 0)),
+                            g.getString("class", 0),
+                            g.getFieldRepetitionCount("score") == 0 ? null : g.getInteger("score", 0)));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.service;
+
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.SharedFormulaRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// StudentXlsReader against a small .xls built here. POI's HSSF writer only emits NUMBER and plain
+// FORMULA records, so its record stream is rewritten the way Excel would have saved the sheet:
+// integral numbers become RK records (MULRK for a run of them in one row), and a SHRFMLA record goes
+// between a string formula and its cached STRING result, as for a shared formula
+class StudentXlsReaderTest {
+
+    private static final short SID_RK = 0x027E;
+    private static final short SID_MULRK = 0x00BD;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsStudentRowsByExcelRecordLayout() throws IOException {
+        Path file = writeFixture(dir.resolve("students.xls"));
+
+        List<String> rows = new ArrayList<>();
+        try (DataProcessingService.SheetSource source = DataProcessingService.openSheets(file, DataProcessingService.READER_SAX)) {
+            assertThat(source.sheetNames()).containsExactly("Students");
+            int dataRows = source.forEachStudentRow(0, (rowNum, row) -> rows.add(rowNum + ": " + String.join(",", row)));
+            assertThat(dataRows).isEqualTo(3);
+        }
+
+        assertThat(rows).containsExactly(
+                // RK id and score, NUMBER class, built-in date format
+                "2: 101,Ann,Lee,2004-03-15,7.5,90",
+                // sheet row 3 is blank: the default id is the sheet row, not the count of rows seen.
+                // firstName is a shared string formula, lastName a plain one, score a numeric formula
+                "4: 4,Bob,Ray,2004-03-15,Class2,75",
+                // MULRK over DOB (custom date format), class and score
+                "5: 103,Cy,Ng,2005-06-01,7,76");
+    }
+
+    private static Path writeFixture(Path file) throws IOException {
+        byte[] workbookStream;
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            CellStyle builtinDate = workbook.createCellStyle();
+            builtinDate.setDataFormat(workbook.createDataFormat().getFormat("m/d/yy"));
+            CellStyle customDate = workbook.createCellStyle();
+            customDate.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+
+            HSSFSheet sheet = workbook.createSheet("Students");
+            HSSFRow header = sheet.createRow(0);
+            String[] columns = {"studentId", "firstName", "lastName", "DOB", "class", "score"};
+            for (int i = 0; i < columns.length; i++) {
+                header.createCell(i).setCellValue(columns[i]);
+            }
+
+            HSSFRow ann = sheet.createRow(1);
+            ann.createCell(0).setCellValue(101);
+            ann.createCell(1).setCellValue("Ann");
+            ann.createCell(2).setCellValue("Lee");
+            HSSFCell annDob = ann.createCell(3);
+            annDob.setCellValue(LocalDate.of(2004, 3, 15));
+            annDob.setCellStyle(builtinDate);
+            ann.createCell(4).setCellValue(7.5);
+            ann.createCell(5).setCellValue(80);
+
+            HSSFRow bob = sheet.createRow(3);
+            formula(bob.createCell(1), "\"B\"&\"ob\"").setCellValue("Bob");
+            formula(bob.createCell(2), "\"R\"&\"ay\"").setCellValue("Ray");
+            bob.createCell(3).setCellValue("15/03/2004");
+            bob.createCell(4).setCellValue("Class2");
+            formula(bob.createCell(5), "60+5").setCellValue(65);
+
+            HSSFRow cy = sheet.createRow(4);
+            cy.createCell(0).setCellValue(103);
+            cy.createCell(1).setCellValue("Cy");
+            cy.createCell(2).setCellValue("Ng");
+            HSSFCell cyDob = cy.createCell(3);
+            cyDob.setCellValue(LocalDate.of(2005, 6, 1));
+            cyDob.setCellStyle(customDate);
+            cy.createCell(4).setCellValue(7);
+            cy.createCell(5).setCellValue(66);
+
+            workbookStream = workbook.getBytes();
+        }
+
+        byte[] rewritten = rewriteAsExcel(workbookStream);
+        assertThat(recordSids(rewritten)).contains(SID_RK, SID_MULRK, SharedFormulaRecord.sid, StringRecord.sid);
+
+        try (POIFSFileSystem fs = new POIFSFileSystem()) {
+            fs.createDocument(new ByteArrayInputStream(rewritten), "Workbook");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                fs.writeFilesystem(out);
+            }
+        }
+        return file;
+    }
+
+    private static HSSFCell formula(HSSFCell cell, String formula) {
+        cell.setCellFormula(formula);
+        return cell;
+    }
+
+    // Only the single sheet's records change size, so the sheet offset in BOUNDSHEET stays valid
+    private static byte[] rewriteAsExcel(byte[] stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<byte[]> numbers = new ArrayList<>();
+        boolean sharedFormulaInserted = false;
+        int previousSid = -1;
+        for (int pos = 0; pos < stream.length; ) {
+            ByteBuffer header = ByteBuffer.wrap(stream, pos, 4).order(ByteOrder.LITTLE_ENDIAN);
+            int sid = header.getShort() & 0xffff;
+            int length = header.getShort() & 0xffff;
+            byte[] data = new byte[length];
+            System.arraycopy(stream, pos + 4, data, 0, length);
+            pos += 4 + length;
+
+            if (sid == NumberRecord.sid && isIntegral(data)) {
+                if (!numbers.isEmpty() && !continuesRun(numbers.get(numbers.size() - 1), data)) {
+                    writeRkRun(out, numbers);
+                }
+                numbers.add(data);
+                continue;
+            }
+            writeRkRun(out, numbers);
+            if (sid == StringRecord.sid && previousSid == FormulaRecord.sid && !sharedFormulaInserted) {
+                out.writeBytes(new SharedFormulaRecord().serialize());
+                sharedFormulaInserted = true;
+            }
+            writeRecord(out, sid, data);
+            previousSid = sid;
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isIntegral(byte[] number) {
+        double value = ByteBuffer.wrap(number, 6, 8).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+        return value == Math.rint(value) && Math.abs(value) < (1 << 29);
+    }
+
+    private static boolean continuesRun(byte[] previous, byte[] next) {
+        return row(previous) == row(next) && column(previous) + 1 == column(next);
+    }
+
+    // RK for a single number, MULRK for a run of them in adjacent columns
+    private static void writeRkRun(ByteArrayOutputStream out, List<byte[]> numbers) {
+        if (numbers.isEmpty()) return;
+        byte[] first = numbers.get(0);
+        ByteBuffer data = ByteBuffer.allocate(numbers.size() == 1 ? 10 : 6 + 6 * numbers.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        data.putShort((short) row(first)).putShort((short) column(first));
+        for (byte[] number : numbers) {
+            ByteBuffer value = ByteBuffer.wrap(number).order(ByteOrder.LITTLE_ENDIAN);
+            data.putShort(value.getShort(4)).putInt(((int) value.getDouble(6) << 2) | 0x02);
+        }
+        if (numbers.size() > 1) {
+            data.putShort((short) column(numbers.get(numbers.size() - 1)));
+        }
+        writeRecord(out, numbers.size() == 1 ? SID_RK : SID_MULRK, data.array());
+        numbers.clear();
+    }
+
+    private static int row(byte[] cell) {
+        return ByteBuffer.wrap(cell).order(ByteOrder.LITTLE_ENDIAN).getShort(0) & 0xffff;
+    }
+
+    private static int column(byte[] cell) {
+        return ByteBuffer.wrap(cell).order(ByteOrder.LITTLE_ENDIAN).getShort(2) & 0xffff;
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, int sid, byte[] data) {
+        out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) sid).putShort((short) data.length).array());
+        out.writeBytes(data);
+    }
+
+    private static Set<Short> recordSids(byte[] stream) {
+        Set<Short> sids = new HashSet<>();
+        for (int pos = 0; pos < stream.length; ) {
+            ByteBuffer header = ByteBuffer.wrap(stream, pos, 4).order(ByteOrder.LITTLE_ENDIAN);
+            sids.add(header.getShort());
+            pos += 4 + (header.getShort() & 0xffff);
+        }
+        return sids;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.service;
+
+import com.example.dto.GenerationProfile;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Generated workbooks spanning several CHUNK_ROWS chunks, the last one partial, written three ways:
+// chunks encoded on a pool, chunks encoded on the calling thread, and row by row through writeRow.
+// All three must be the same file byte for byte. The zip is checked by ZipInputStream, which verifies
+// each entry's CRC and sizes against its data descriptor, and by a CRC computed here against the
+// central directory, which is where the combined CRC of the sheet's chunks ends up. POI then reads
+// every row back. Last names are synthesized, so that column is written as inline strings
+class StudentXlsxWriterTest {
+
+    private static final int ROWS = 2 * StudentXlsxWriter.CHUNK_ROWS + 1234;
+    private static final long SEED = 42;
+
+    private record StudentRow(long studentId, String firstName, String lastName, String dob, String className,
+                              int score) {}
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkedWorkbookIsTheSameFileHoweverItIsWritten() throws IOException, InvalidFormatException {
+        StudentRecordGenerator generator = generator();
+        Path pooled = dir.resolve("pooled.xlsx");
+        Path singleThreaded = dir.resolve("single-threaded.xlsx");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DataGenerationService.writeStudentWorkbook(pooled, ROWS, SEED, generator, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        DataGenerationService.writeStudentWorkbook(singleThreaded, ROWS, SEED, generator, null);
+
+        List<StudentRow> expected = expectedRows(generator);
+        Path rowByRow = dir.resolve("row-by-row.xlsx");
+        try (StudentXlsxWriter writer = StudentXlsxWriter.open(rowByRow, generator.vocabulary(), 3)) {
+            for (StudentRow row : expected) {
+                writer.writeRow(row.studentId(), row.firstName(), row.lastName(), row.dob(), row.className(), row.score());
+            }
+        }
+
+        assertThat(Files.mismatch(pooled, singleThreaded)).isEqualTo(-1);
+        assertThat(Files.mismatch(pooled, rowByRow)).isEqualTo(-1);
+
+        assertThat(entryCrcs(pooled)).containsOnlyKeys(
+                "[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels",
+                "xl/styles.xml", "xl/sharedStrings.xml", "xl/worksheets/sheet1.xml");
+        assertThat(read(pooled)).containsExactlyElementsOf(expected);
+    }
+
+    private static StudentRecordGenerator generator() {
+        GenerationProfile profile = new GenerationProfile();
+        profile.setLastNameCardinality(0);
+        return StudentRecordGenerator.from(profile);
+    }
+
+    // The records generateRanges produces for SEED: one split of the seeded root per range
+    private static List<StudentRow> expectedRows(StudentRecordGenerator generator) {
+        List<StudentRow> rows = new ArrayList<>();
+        SplittableRandom seeds = new SplittableRandom(SEED);
+        for (int firstRow = 0; firstRow < ROWS; firstRow += StudentXlsxWriter.CHUNK_ROWS) {
+            generator.generate(firstRow, Math.min(StudentXlsxWriter.CHUNK_ROWS, ROWS - firstRow), seeds.split(),
+                    (id, first, last, dob, className, score) -> rows.add(new StudentRow(id, first, last, dob, className, score)));
+        }
+        return rows;
+    }
+
+    // Reads every entry through ZipInputStream, whose CRC and size checks throw ZipException on a
+    // mismatch, and checks each CRC against the central directory
+    private static Map<String, Long> entryCrcs(Path file) throws IOException {
+        Map<String, Long> crcs = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(file))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                CRC32 crc = new CRC32();
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = zip.read(buffer)) > 0) {
+                    crc.update(buffer, 0, n);
+                }
+                crcs.put(entry.getName(), crc.getValue());
+            }
+        }
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            assertThat(zipFile.size()).isEqualTo(crcs.size());
+            zipFile.stream().forEach(entry -> assertThat(entry.getCrc()).as(entry.getName()).isEqualTo(crcs.get(entry.getName())));
+            try (InputStream sheet = zipFile.getInputStream(zipFile.getEntry("xl/worksheets/sheet1.xml"))) {
+                assertThat(new String(sheet.readAllBytes(), StandardCharsets.UTF_8)).endsWith("</sheetData></worksheet>");
+            }
+        }
+        return crcs;
+    }
+
+    private static List<StudentRow> read(Path file) throws IOException, InvalidFormatException {
+        List<StudentRow> rows = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+             XSSFWorkbook workbook = new XSSFWorkbook(pkg)) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(1);
+            Sheet sheet = workbook.getSheet(StudentXlsxWriter.SHEET_NAME);
+            Row header = sheet.getRow(0);
+            for (int i = 0; i < DataProcessingService.CSV_HEADER.length; i++) {
+                assertThat(header.getCell(i).getStringCellValue()).isEqualTo(DataProcessingService.CSV_HEADER[i]);
+            }
+            assertThat(sheet.getLastRowNum()).isEqualTo(ROWS);
+            for (int r = 1; r <= ROWS; r++) {
+                Row row = sheet.getRow(r);
+                rows.add(new StudentRow(
+                        (long) row.getCell(0).getNumericCellValue(),
+                        row.getCell(1).getStringCellValue(),
+                        row.getCell(2).getStringCellValue(),
+                        row.getCell(3).getStringCellValue(),
+                        row.getCell(4).getStringCellValue(),
+                        (int) row.getCell(5).getNumericCellValue()));
+            }
+        }
+        return rows;
+    }
+}
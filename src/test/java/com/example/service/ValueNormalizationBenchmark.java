@@ -0,0 +1,134 @@
+package com.example.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The DOB/score normalization excel-to-csv used before StudentValueNormalizer (formatter attempts
+// with exceptions as control flow, a regex per score) vs the memoized hand-rolled parsers, on raw
+// cell values drawn from a small pool of distinct values like real extracts. Setup fails if the
+// two disagree on any value
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ValueNormalizationBenchmark {
+
+    private static final DateTimeFormatter[] LEGACY_DATE_FORMATS = {
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy")
+    };
+
+    @Param("1000000")
+    int rows;
+
+    @Param("500")
+    int distinctValues;
+
+    private String[] dates;
+    private String[] scores;
+
+    @Setup
+    public void setUp() {
+        String[] datePool = new String[distinctValues];
+        String[] scorePool = new String[distinctValues];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < distinctValues; i++) {
+            int year = 2000 + random.nextInt(10);
+            int month = 1 + random.nextInt(12);
+            int day = 1 + random.nextInt(28);
+            datePool[i] = switch (i % 5) {
+                case 0 -> String.format("%02d/%02d/%d", day, month, year);
+                case 1 -> String.format("%02d/%02d/%d", month, 13 + random.nextInt(16), year); // only MM/dd fits
+                case 2 -> String.format("%02d-%02d-%d", day, month, year);
+                case 3 -> String.format("%d-%02d-%02d", year, month, day);
+                default -> i % 10 == 4 ? "unknown" : String.format("%d.%02d.%02d", year, month, day); // no layout fits
+            };
+            int score = 55 + random.nextInt(31);
+            scorePool[i] = switch (i % 4) {
+                case 0 -> String.valueOf(score);
+                case 1 -> score + " pts";
+                case 2 -> " " + score + " ";
+                default -> i % 8 == 3 ? "n/a" : "-";
+            };
+        }
+        dates = new String[rows];
+        scores = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            // Fresh String instances, as every cell read produces one
+            dates[i] = new String(datePool[random.nextInt(distinctValues)]);
+            scores[i] = new String(scorePool[random.nextInt(distinctValues)]);
+        }
+
+        StudentValueNormalizer check = new StudentValueNormalizer();
+        for (int i = 0; i < distinctValues; i++) {
+            if (!legacyDate(datePool[i]).equals(check.date(datePool[i]))) {
+                throw new IllegalStateException("Normalizers disagree on date '" + datePool[i] + "'");
+            }
+            if (!legacyScore(scorePool[i]).equals(check.score(scorePool[i]))) {
+                throw new IllegalStateException("Normalizers disagree on score '" + scorePool[i] + "'");
+            }
+        }
+    }
+
+    @Benchmark
+    public long formatterAndRegex() {
+        long checksum = 0;
+        for (int i = 0; i < rows; i++) {
+            checksum += legacyDate(dates[i]).length() + legacyScore(scores[i]).length();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long memoizedParser() {
+        long checksum = 0;
+        StudentValueNormalizer normalizer = new StudentValueNormalizer(); // one per job
+        for (int i = 0; i < rows; i++) {
+            checksum += normalizer.date(dates[i]).length() + normalizer.score(scores[i]).length();
+        }
+        return checksum;
+    }
+
+    // DataProcessingService.extractDateFast as it was, for text cells
+    private static String legacyDate(String dateStr) {
+        dateStr = dateStr.trim();
+        if (dateStr.isEmpty()) return LocalDate.now().toString();
+        if (dateStr.length() >= 10 && dateStr.charAt(4) == '-' && dateStr.charAt(7) == '-') {
+            return dateStr.substring(0, 10);
+        }
+        for (DateTimeFormatter f : LEGACY_DATE_FORMATS) {
+            try {
+                return LocalDate.parse(dateStr, f).toString();
+            } catch (Exception ignored) {}
+        }
+        return LocalDate.now().toString();
+    }
+
+    // DataProcessingService.computeScore as it was, for text cells
+    private static String legacyScore(String s) {
+        s = s.trim();
+        if (s.isEmpty()) return "70";
+        try {
+            return String.valueOf(Integer.parseInt(s.replaceAll("[^0-9-]", "")) + 10);
+        } catch (Exception e) {
+            return "70";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// excel-streaming-reader vs StudentXlsxReader reading every sheet of the same workbook into CSV rows.
+// Pass -p workbook=/path/to.xlsx to measure a real workbook; otherwise a synthetic one of rows rows
+// is generated. Add -prof gc for allocation rates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class XlsxReadingBenchmark {
+
+    @Param("200000")
+    int rows;
+
+    @Param("")
+    String workbook;
+
+    private Path workbookFile;
+    private boolean synthetic;
+
+    @Setup
+    public void setUp() throws IOException {
+        synthetic = workbook.isEmpty();
+        if (synthetic) {
+            workbookFile = Files.createTempFile("benchmark-", ".xlsx");
+            BenchmarkData.writeStudentWorkbook(workbookFile, rows);
+        } else {
+            workbookFile = Paths.get(workbook);
+        }
+        try (DataProcessingService.SheetSource sax = DataProcessingService.openSheets(workbookFile, DataProcessingService.READER_SAX)) {
+            StudentXlsxReader reader = ((DataProcessingService.SaxSheets) sax).reader();
+            System.out.println("sheets: " + sax.sheetNames().size() + ", sharedStrings: " + reader.sharedStringCount()
+                    + " (" + Math.round(reader.sharedStringBytes() / 1024.0 / 1024.0 * 10) / 10.0 + " MB off-heap)");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (synthetic) {
+            Files.deleteIfExists(workbookFile);
+        }
+    }
+
+    @Benchmark
+    public long streamingReader() throws IOException {
+        return readAll(DataProcessingService.READER_STREAMING);
+    }
+
+    @Benchmark
+    public long saxReader() throws IOException {
+        return readAll(DataProcessingService.READER_SAX);
+    }
+
+    private long readAll(String reader) throws IOException {
+        long[] checksum = new long[1];
+        try (DataProcessingService.SheetSource source = DataProcessingService.openSheets(workbookFile, reader)) {
+            for (int i = 0; i < source.sheetNames().size(); i++) {
+                source.forEachStudentRow(i, (rowNum, row) -> checksum[0] += row[1].length() + row[5].length());
+            }
+        }
+        return checksum[0];
+    }
+}